@@ -13,23 +13,45 @@
  */
 package com.github.ragnard.trino.k8s;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.github.ragnard.trino.k8s.resources.JsonExtraction;
 import io.airlift.slice.SizeOf;
 import io.trino.spi.connector.ColumnHandle;
 import io.trino.spi.connector.ColumnMetadata;
 import io.trino.spi.type.Type;
 
+import java.util.Optional;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A column of a table, or a {@link JsonExtraction} pushed down as a
+ * synthetic column.
+ */
 public record KubernetesColumnHandle(
         @JsonProperty("name") String name,
-        @JsonProperty("type") Type type
+        @JsonProperty("type") Type type,
+        @JsonProperty("extraction") Optional<JsonExtraction> extraction
 )
         implements ColumnHandle
 {
     private static final int INSTANCE_SIZE = SizeOf.instanceSize(KubernetesTableHandle.class);
 
+    @JsonCreator
+    public KubernetesColumnHandle
+    {
+        requireNonNull(extraction, "extraction is null");
+    }
+
+    public KubernetesColumnHandle(String name, Type type)
+    {
+        this(name, type, Optional.empty());
+    }
+
     public long getRetainedSizeInBytes()
     {
-        return INSTANCE_SIZE;
+        return INSTANCE_SIZE + SizeOf.sizeOf(extraction, JsonExtraction::getRetainedSizeInBytes);
     }
 
     public ColumnMetadata toColumnMetadata()
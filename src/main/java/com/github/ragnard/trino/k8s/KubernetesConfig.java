@@ -14,6 +14,278 @@
 
 package com.github.ragnard.trino.k8s;
 
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.configuration.Config;
+import io.airlift.configuration.ConfigDescription;
+import io.airlift.units.Duration;
+import io.airlift.units.MinDuration;
+import io.airlift.units.MaxDuration;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+import java.util.Optional;
+import java.util.Set;
+
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
+
 public class KubernetesConfig
 {
+    private Set<String> cachedTables = ImmutableSet.of();
+    private Duration cacheMaxStaleness = new Duration(30, MINUTES);
+    private int listPageSize = 500;
+    private int lookupConcurrency = 16;
+    private Duration dynamicFilteringWaitTimeout = new Duration(1, SECONDS);
+    private boolean splitPerNamespace;
+    private boolean ownerIndexEnabled;
+    private Duration discoveryRefreshInterval = new Duration(10, MINUTES);
+    private String discoverySnapshotFile;
+    private boolean typedColumnsEnabled = true;
+    private Duration httpConnectTimeout = new Duration(10, SECONDS);
+    private Duration httpReadTimeout = new Duration(0, SECONDS);
+    private int httpMaxIdleConnections = 16;
+    private int httpMaxRequestsPerHost = 64;
+    private Duration httpRequestWaitTimeout = new Duration(30, SECONDS);
+    private boolean http2Enabled = true;
+    private boolean httpCompressionEnabled = true;
+
+    @NotNull
+    public Set<String> getCachedTables()
+    {
+        return cachedTables;
+    }
+
+    @Config("kubernetes.cache.tables")
+    @ConfigDescription("Comma separated list of resource tables served from an informer-backed in-memory cache, kept by every worker")
+    public KubernetesConfig setCachedTables(String cachedTables)
+    {
+        this.cachedTables = ImmutableSet.copyOf(Splitter.on(',').trimResults().omitEmptyStrings().split(cachedTables));
+        return this;
+    }
+
+    @NotNull
+    @MinDuration("1s")
+    public Duration getCacheMaxStaleness()
+    {
+        return cacheMaxStaleness;
+    }
+
+    @Config("kubernetes.cache.max-staleness")
+    @ConfigDescription("Maximum time a cached table may go without a successful list or watch event before scans fall back to the API server")
+    public KubernetesConfig setCacheMaxStaleness(Duration cacheMaxStaleness)
+    {
+        this.cacheMaxStaleness = cacheMaxStaleness;
+        return this;
+    }
+
+    @Min(1)
+    public int getListPageSize()
+    {
+        return listPageSize;
+    }
+
+    @Config("kubernetes.list.page-size")
+    @ConfigDescription("Maximum number of objects requested from the API server per LIST call")
+    public KubernetesConfig setListPageSize(int listPageSize)
+    {
+        this.listPageSize = listPageSize;
+        return this;
+    }
+
+    @Min(1)
+    public int getLookupConcurrency()
+    {
+        return lookupConcurrency;
+    }
+
+    @Config("kubernetes.lookup.concurrency")
+    @ConfigDescription("Maximum number of concurrent GET requests used to fetch objects by name")
+    public KubernetesConfig setLookupConcurrency(int lookupConcurrency)
+    {
+        this.lookupConcurrency = lookupConcurrency;
+        return this;
+    }
+
+    @NotNull
+    public Duration getDynamicFilteringWaitTimeout()
+    {
+        return dynamicFilteringWaitTimeout;
+    }
+
+    @Config("kubernetes.dynamic-filtering.wait-timeout")
+    @ConfigDescription("Maximum time to wait for dynamic filters before creating the splits of a resource table")
+    public KubernetesConfig setDynamicFilteringWaitTimeout(Duration dynamicFilteringWaitTimeout)
+    {
+        this.dynamicFilteringWaitTimeout = dynamicFilteringWaitTimeout;
+        return this;
+    }
+
+    public boolean isSplitPerNamespace()
+    {
+        return splitPerNamespace;
+    }
+
+    @Config("kubernetes.list.split-per-namespace")
+    @ConfigDescription("List namespaced resources with one split per namespace, instead of a single cluster-wide list")
+    public KubernetesConfig setSplitPerNamespace(boolean splitPerNamespace)
+    {
+        this.splitPerNamespace = splitPerNamespace;
+        return this;
+    }
+
+    public boolean isOwnerIndexEnabled()
+    {
+        return ownerIndexEnabled;
+    }
+
+    @Config("kubernetes.logs.owner-index.enabled")
+    @ConfigDescription("Resolve the pods of workloads for the logs table function from a watch-maintained owner index")
+    public KubernetesConfig setOwnerIndexEnabled(boolean ownerIndexEnabled)
+    {
+        this.ownerIndexEnabled = ownerIndexEnabled;
+        return this;
+    }
+
+    @NotNull
+    @MinDuration("1s")
+    public Duration getDiscoveryRefreshInterval()
+    {
+        return discoveryRefreshInterval;
+    }
+
+    @Config("kubernetes.discovery.refresh-interval")
+    @ConfigDescription("Age after which the discovered resource tables are refreshed in the background")
+    public KubernetesConfig setDiscoveryRefreshInterval(Duration discoveryRefreshInterval)
+    {
+        this.discoveryRefreshInterval = discoveryRefreshInterval;
+        return this;
+    }
+
+    public Optional<String> getDiscoverySnapshotFile()
+    {
+        return Optional.ofNullable(discoverySnapshotFile);
+    }
+
+    @Config("kubernetes.discovery.snapshot-file")
+    @ConfigDescription("File the discovered resource tables are saved to, and loaded from on startup")
+    public KubernetesConfig setDiscoverySnapshotFile(String discoverySnapshotFile)
+    {
+        this.discoverySnapshotFile = discoverySnapshotFile;
+        return this;
+    }
+
+    public boolean isTypedColumnsEnabled()
+    {
+        return typedColumnsEnabled;
+    }
+
+    @Config("kubernetes.discovery.typed-columns.enabled")
+    @ConfigDescription("Add typed columns for the top-level fields of resources, such as spec and status, derived from their OpenAPI schemas")
+    public KubernetesConfig setTypedColumnsEnabled(boolean typedColumnsEnabled)
+    {
+        this.typedColumnsEnabled = typedColumnsEnabled;
+        return this;
+    }
+
+    @NotNull
+    @MinDuration("1ms")
+    @MaxDuration("1h")
+    public Duration getHttpConnectTimeout()
+    {
+        return httpConnectTimeout;
+    }
+
+    @Config("kubernetes.http.connect-timeout")
+    @ConfigDescription("Timeout for establishing a connection to the API server")
+    public KubernetesConfig setHttpConnectTimeout(Duration httpConnectTimeout)
+    {
+        this.httpConnectTimeout = httpConnectTimeout;
+        return this;
+    }
+
+    @NotNull
+    @MaxDuration("1h")
+    public Duration getHttpReadTimeout()
+    {
+        return httpReadTimeout;
+    }
+
+    @Config("kubernetes.http.read-timeout")
+    @ConfigDescription("Maximum time to wait for data from the API server, or 0s for no timeout")
+    public KubernetesConfig setHttpReadTimeout(Duration httpReadTimeout)
+    {
+        this.httpReadTimeout = httpReadTimeout;
+        return this;
+    }
+
+    @Min(0)
+    public int getHttpMaxIdleConnections()
+    {
+        return httpMaxIdleConnections;
+    }
+
+    @Config("kubernetes.http.max-idle-connections")
+    @ConfigDescription("Maximum number of idle connections to the API server kept in the connection pool")
+    public KubernetesConfig setHttpMaxIdleConnections(int httpMaxIdleConnections)
+    {
+        this.httpMaxIdleConnections = httpMaxIdleConnections;
+        return this;
+    }
+
+    @Min(1)
+    public int getHttpMaxRequestsPerHost()
+    {
+        return httpMaxRequestsPerHost;
+    }
+
+    @Config("kubernetes.http.max-requests-per-host")
+    @ConfigDescription("Maximum number of concurrent requests to the API server, excluding watches and followed logs")
+    public KubernetesConfig setHttpMaxRequestsPerHost(int httpMaxRequestsPerHost)
+    {
+        this.httpMaxRequestsPerHost = httpMaxRequestsPerHost;
+        return this;
+    }
+
+    @NotNull
+    @MinDuration("1ms")
+    @MaxDuration("1h")
+    public Duration getHttpRequestWaitTimeout()
+    {
+        return httpRequestWaitTimeout;
+    }
+
+    @Config("kubernetes.http.max-requests-per-host.wait-timeout")
+    @ConfigDescription("Maximum time a request waits for one of the concurrent requests to the API server to finish")
+    public KubernetesConfig setHttpRequestWaitTimeout(Duration httpRequestWaitTimeout)
+    {
+        this.httpRequestWaitTimeout = httpRequestWaitTimeout;
+        return this;
+    }
+
+    public boolean isHttp2Enabled()
+    {
+        return http2Enabled;
+    }
+
+    @Config("kubernetes.http.http2.enabled")
+    @ConfigDescription("Multiplex requests to the API server over HTTP/2 connections, when the server supports it")
+    public KubernetesConfig setHttp2Enabled(boolean http2Enabled)
+    {
+        this.http2Enabled = http2Enabled;
+        return this;
+    }
+
+    public boolean isHttpCompressionEnabled()
+    {
+        return httpCompressionEnabled;
+    }
+
+    @Config("kubernetes.http.compression.enabled")
+    @ConfigDescription("Request gzip compressed responses from the API server")
+    public KubernetesConfig setHttpCompressionEnabled(boolean httpCompressionEnabled)
+    {
+        this.httpCompressionEnabled = httpCompressionEnabled;
+        return this;
+    }
 }
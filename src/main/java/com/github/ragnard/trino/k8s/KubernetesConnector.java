@@ -16,9 +16,10 @@ package com.github.ragnard.trino.k8s;
 
 import com.github.ragnard.trino.k8s.logs.PodLogsTableFunction;
 import com.google.inject.Inject;
+import io.airlift.bootstrap.LifeCycleManager;
 import io.trino.spi.connector.Connector;
 import io.trino.spi.connector.ConnectorMetadata;
-import io.trino.spi.connector.ConnectorRecordSetProvider;
+import io.trino.spi.connector.ConnectorPageSourceProvider;
 import io.trino.spi.connector.ConnectorSession;
 import io.trino.spi.connector.ConnectorSplitManager;
 import io.trino.spi.connector.ConnectorTransactionHandle;
@@ -35,19 +36,22 @@ import static java.util.Objects.requireNonNull;
 public class KubernetesConnector
         implements Connector, FunctionProvider
 {
+    private final LifeCycleManager lifeCycleManager;
     private final KubernetesMetadata metadata;
     private final KubernetesSplitManager splitManager;
-    private final KubernetesRecordSetProvider recordSetProvider;
+    private final KubernetesPageSourceProvider pageSourceProvider;
 
     @Inject
     public KubernetesConnector(
+            LifeCycleManager lifeCycleManager,
             KubernetesMetadata metadata,
             KubernetesSplitManager splitManager,
-            KubernetesRecordSetProvider recordSetProvider)
+            KubernetesPageSourceProvider pageSourceProvider)
     {
+        this.lifeCycleManager = requireNonNull(lifeCycleManager, "lifeCycleManager is null");
         this.metadata = requireNonNull(metadata, "metadata is null");
         this.splitManager = requireNonNull(splitManager, "splitManager is null");
-        this.recordSetProvider = requireNonNull(recordSetProvider, "recordSetProvider is null");
+        this.pageSourceProvider = requireNonNull(pageSourceProvider, "pageSourceProvider is null");
     }
 
     @Override
@@ -69,9 +73,9 @@ public class KubernetesConnector
     }
 
     @Override
-    public ConnectorRecordSetProvider getRecordSetProvider()
+    public ConnectorPageSourceProvider getPageSourceProvider()
     {
-        return recordSetProvider;
+        return pageSourceProvider;
     }
 
     @Override
@@ -85,4 +89,10 @@ public class KubernetesConnector
     {
         return Set.of(new PodLogsTableFunction());
     }
+
+    @Override
+    public void shutdown()
+    {
+        lifeCycleManager.stop();
+    }
 }
@@ -23,6 +23,8 @@ import com.github.ragnard.trino.k8s.resources.ResourceTableHandle;
 import com.google.inject.Inject;
 import io.trino.spi.StandardErrorCode;
 import io.trino.spi.TrinoException;
+import io.trino.spi.connector.AggregateFunction;
+import io.trino.spi.connector.AggregationApplicationResult;
 import io.trino.spi.connector.ColumnHandle;
 import io.trino.spi.connector.ColumnMetadata;
 import io.trino.spi.connector.ConnectorMetadata;
@@ -33,8 +35,10 @@ import io.trino.spi.connector.ConnectorTableVersion;
 import io.trino.spi.connector.Constraint;
 import io.trino.spi.connector.ConstraintApplicationResult;
 import io.trino.spi.connector.LimitApplicationResult;
+import io.trino.spi.connector.ProjectionApplicationResult;
 import io.trino.spi.connector.SchemaTableName;
 import io.trino.spi.connector.TableFunctionApplicationResult;
+import io.trino.spi.expression.ConnectorExpression;
 import io.trino.spi.function.table.ConnectorTableFunctionHandle;
 
 import java.util.List;
@@ -83,7 +87,7 @@ public class KubernetesMetadata
     public ConnectorTableMetadata getTableMetadata(ConnectorSession session, ConnectorTableHandle tableHandle)
     {
         return switch ((KubernetesTableHandle) tableHandle) {
-            case ResourceTableHandle h -> this.kubernetesResources.lookupTableOrThrow(h).getTableMetadata();
+            case ResourceTableHandle h -> this.kubernetesResources.getTable(h).getTableMetadata();
             case PodLogsTableHandle _ -> PodLogsTable.TABLE_METADATA;
             default -> throw new IllegalStateException("Unexpected value: " + tableHandle);
         };
@@ -93,7 +97,7 @@ public class KubernetesMetadata
     public Map<String, ColumnHandle> getColumnHandles(ConnectorSession session, ConnectorTableHandle tableHandle)
     {
         return switch ((KubernetesTableHandle) tableHandle) {
-            case ResourceTableHandle h -> this.kubernetesResources.lookupTableOrThrow(h).getColumnHandles();
+            case ResourceTableHandle h -> this.kubernetesResources.getTable(h).getColumnHandles();
             default -> throw new IllegalStateException("Unexpected value: " + tableHandle);
         };
     }
@@ -102,7 +106,7 @@ public class KubernetesMetadata
     public ColumnMetadata getColumnMetadata(ConnectorSession session, ConnectorTableHandle tableHandle, ColumnHandle columnHandle)
     {
         return switch ((KubernetesTableHandle) tableHandle) {
-            case ResourceTableHandle h -> this.kubernetesResources.lookupTableOrThrow(h).getColumnMetadata((KubernetesColumnHandle) columnHandle);
+            case ResourceTableHandle h -> this.kubernetesResources.getTable(h).getColumnMetadata((KubernetesColumnHandle) columnHandle);
             case PodLogsTableHandle _ -> ((KubernetesColumnHandle) columnHandle).toColumnMetadata();
             default -> throw new IllegalStateException("Unexpected value: " + tableHandle);
         };
@@ -128,6 +132,31 @@ public class KubernetesMetadata
         return handle.applyFilter(constraint);
     }
 
+    @Override
+    public Optional<AggregationApplicationResult<ConnectorTableHandle>> applyAggregation(
+            ConnectorSession session,
+            ConnectorTableHandle handle,
+            List<AggregateFunction> aggregates,
+            Map<String, ColumnHandle> assignments,
+            List<List<ColumnHandle>> groupingSets)
+    {
+        KubernetesTableHandle tableHandle = (KubernetesTableHandle) handle;
+
+        return tableHandle.applyAggregation(aggregates, assignments, groupingSets);
+    }
+
+    @Override
+    public Optional<ProjectionApplicationResult<ConnectorTableHandle>> applyProjection(
+            ConnectorSession session,
+            ConnectorTableHandle handle,
+            List<ConnectorExpression> projections,
+            Map<String, ColumnHandle> assignments)
+    {
+        KubernetesTableHandle tableHandle = (KubernetesTableHandle) handle;
+
+        return tableHandle.applyProjection(projections, assignments);
+    }
+
     @Override
     public Optional<LimitApplicationResult<ConnectorTableHandle>> applyLimit(ConnectorSession session, ConnectorTableHandle handle, long limit)
     {
@@ -141,6 +170,11 @@ public class KubernetesMetadata
             return Optional.empty();
         }
 
-        return Optional.of(new LimitApplicationResult<>(tableHandle.withLimit((int) limit), true, false));
+        // every split applies the limit, so it is only guaranteed when there is a single split
+        var limitGuaranteed = tableHandle.resourceTableHandle()
+                .map(this.kubernetesResources::isSingleSplit)
+                .orElse(true);
+
+        return Optional.of(new LimitApplicationResult<>(tableHandle.withLimit((int) limit), limitGuaranteed, false));
     }
 }
@@ -16,15 +16,27 @@ package com.github.ragnard.trino.k8s;
 
 import com.github.ragnard.trino.k8s.client.KubernetesResources;
 import com.github.ragnard.trino.k8s.client.KubernetesLogs;
+import com.github.ragnard.trino.k8s.client.KubernetesResourceCache;
+import com.github.ragnard.trino.k8s.client.OwnerIndex;
+import com.github.ragnard.trino.k8s.client.RequestLimiter;
+import com.github.ragnard.trino.k8s.client.ResourceDiscovery;
 import com.google.inject.Binder;
+import com.google.inject.Inject;
 import com.google.inject.Provider;
 import io.airlift.configuration.AbstractConfigurationAwareModule;
 import io.kubernetes.client.openapi.ApiClient;
 import io.kubernetes.client.util.ClientBuilder;
+import okhttp3.ConnectionPool;
+import okhttp3.Dispatcher;
+import okhttp3.Protocol;
 
 import java.io.IOException;
+import java.util.List;
 
 import static com.google.inject.Scopes.SINGLETON;
+import static io.airlift.configuration.ConfigBinder.configBinder;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.MINUTES;
 
 public class KubernetesModule
         extends AbstractConfigurationAwareModule
@@ -32,31 +44,67 @@ public class KubernetesModule
     @Override
     protected void setup(Binder binder)
     {
-        // configBinder(binder).bindConfig(KubernetesConfig.class);
+        configBinder(binder).bindConfig(KubernetesConfig.class);
 
         binder.bind(KubernetesConnector.class).in(SINGLETON);
         binder.bind(KubernetesMetadata.class).in(SINGLETON);
-        binder.bind(KubernetesRecordSetProvider.class).in(SINGLETON);
+        binder.bind(KubernetesPageSourceProvider.class).in(SINGLETON);
         binder.bind(KubernetesSplitManager.class).in(SINGLETON);
 
+        binder.bind(ResourceDiscovery.class).in(SINGLETON);
         binder.bind(KubernetesResources.class).in(SINGLETON);
         binder.bind(KubernetesLogs.class).in(SINGLETON);
+        binder.bind(KubernetesResourceCache.class).in(SINGLETON);
+        binder.bind(OwnerIndex.class).in(SINGLETON);
 
-        binder.bind(ApiClient.class).toProvider(ApiClientProvider.class);
+        binder.bind(ApiClient.class).toProvider(ApiClientProvider.class).in(SINGLETON);
     }
 
+    /**
+     * Builds the single {@link ApiClient} shared by the connector, so that
+     * all API calls go through one connection pool.
+     */
     public static class ApiClientProvider
             implements Provider<ApiClient>
     {
+        private final KubernetesConfig config;
+
+        @Inject
+        public ApiClientProvider(KubernetesConfig config)
+        {
+            this.config = config;
+        }
+
         @Override
         public ApiClient get()
         {
+            ApiClient apiClient;
             try {
-                return ClientBuilder.standard(false).build();
+                apiClient = ClientBuilder.standard(false).build();
             }
             catch (IOException e) {
                 throw new RuntimeException(e);
             }
+
+            var dispatcher = new Dispatcher();
+            dispatcher.setMaxRequestsPerHost(config.getHttpMaxRequestsPerHost());
+
+            var httpClient = apiClient.getHttpClient().newBuilder()
+                    .connectionPool(new ConnectionPool(config.getHttpMaxIdleConnections(), 5, MINUTES))
+                    .dispatcher(dispatcher)
+                    .connectTimeout(config.getHttpConnectTimeout().toMillis(), MILLISECONDS)
+                    .readTimeout(config.getHttpReadTimeout().toMillis(), MILLISECONDS)
+                    .protocols(config.isHttp2Enabled() ? List.of(Protocol.HTTP_2, Protocol.HTTP_1_1) : List.of(Protocol.HTTP_1_1))
+                    .addInterceptor(new RequestLimiter(config.getHttpMaxRequestsPerHost(), config.getHttpRequestWaitTimeout()));
+
+            if (!config.isHttpCompressionEnabled()) {
+                // OkHttp asks for gzip and decompresses transparently, unless the request sets an encoding
+                httpClient.addInterceptor(chain -> chain.proceed(chain.request().newBuilder()
+                        .header("Accept-Encoding", "identity")
+                        .build()));
+            }
+
+            return apiClient.setHttpClient(httpClient.build());
         }
     }
 }
@@ -20,23 +20,24 @@ import com.github.ragnard.trino.k8s.logs.PodLogsTableFunctionSplit;
 import com.github.ragnard.trino.k8s.resources.ResourceTableSplit;
 import com.google.inject.Inject;
 import io.trino.spi.connector.ColumnHandle;
-import io.trino.spi.connector.ConnectorRecordSetProvider;
+import io.trino.spi.connector.ConnectorPageSource;
+import io.trino.spi.connector.ConnectorPageSourceProvider;
 import io.trino.spi.connector.ConnectorSession;
 import io.trino.spi.connector.ConnectorSplit;
 import io.trino.spi.connector.ConnectorTableHandle;
 import io.trino.spi.connector.ConnectorTransactionHandle;
-import io.trino.spi.connector.RecordSet;
+import io.trino.spi.connector.DynamicFilter;
 
 import java.util.List;
 
-public class KubernetesRecordSetProvider
-        implements ConnectorRecordSetProvider
+public class KubernetesPageSourceProvider
+        implements ConnectorPageSourceProvider
 {
     private final KubernetesResources kubernetesResources;
     private final KubernetesLogs kubernetesLogs;
 
     @Inject
-    public KubernetesRecordSetProvider(
+    public KubernetesPageSourceProvider(
             KubernetesResources kubernetesResources,
             KubernetesLogs kubernetesLogs)
     {
@@ -45,29 +46,30 @@ public class KubernetesRecordSetProvider
     }
 
     @Override
-    public RecordSet getRecordSet(
-            ConnectorTransactionHandle connectorTransactionHandle,
-            ConnectorSession connectorSession,
-            ConnectorSplit connectorSplit,
-            ConnectorTableHandle tableHandle,
-            List<? extends ColumnHandle> columnHandles)
+    public ConnectorPageSource createPageSource(
+            ConnectorTransactionHandle transaction,
+            ConnectorSession session,
+            ConnectorSplit split,
+            ConnectorTableHandle table,
+            List<ColumnHandle> columnHandles,
+            DynamicFilter dynamicFilter)
     {
         @SuppressWarnings("unchecked")
-        var columns = (List<KubernetesColumnHandle>) columnHandles;
+        var columns = (List<KubernetesColumnHandle>) (List<?>) columnHandles;
 
-        return switch (connectorSplit) {
-            case ResourceTableSplit s -> getRecordSet(s, columns);
-            case PodLogsTableFunctionSplit s -> getRecordSet(s, columns);
-            default -> throw new IllegalStateException("Unexpected value: " + connectorSplit);
+        return switch (split) {
+            case ResourceTableSplit s -> createPageSource(s, columns, dynamicFilter);
+            case PodLogsTableFunctionSplit s -> createPageSource(s, columns);
+            default -> throw new IllegalStateException("Unexpected value: " + split);
         };
     }
 
-    private RecordSet getRecordSet(ResourceTableSplit split, List<KubernetesColumnHandle> columnHandles)
+    private ConnectorPageSource createPageSource(ResourceTableSplit split, List<KubernetesColumnHandle> columnHandles, DynamicFilter dynamicFilter)
     {
-        return kubernetesResources.execute(split.tableHandle(), columnHandles);
+        return kubernetesResources.createPageSource(split.tableHandle(), split.namespace(), columnHandles, dynamicFilter);
     }
 
-    private RecordSet getRecordSet(PodLogsTableFunctionSplit split, List<KubernetesColumnHandle> columnHandles)
+    private ConnectorPageSource createPageSource(PodLogsTableFunctionSplit split, List<KubernetesColumnHandle> columnHandles)
     {
         return kubernetesLogs.getLogs(split, columnHandles);
     }
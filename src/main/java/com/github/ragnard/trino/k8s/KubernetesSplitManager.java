@@ -15,11 +15,13 @@
 package com.github.ragnard.trino.k8s;
 
 import com.github.ragnard.trino.k8s.client.KubernetesLogs;
+import com.github.ragnard.trino.k8s.client.KubernetesResources;
 import com.github.ragnard.trino.k8s.logs.PodLogsTableFunctionSplit;
 import com.github.ragnard.trino.k8s.logs.PodLogsTableHandle;
 import com.github.ragnard.trino.k8s.resources.ResourceTableHandle;
-import com.github.ragnard.trino.k8s.resources.ResourceTableSplit;
+import com.github.ragnard.trino.k8s.resources.ResourceTableSplitSource;
 import com.google.inject.Inject;
+import io.airlift.units.Duration;
 import io.kubernetes.client.openapi.models.V1Pod;
 import io.kubernetes.client.openapi.models.V1PodSpec;
 import io.trino.spi.connector.ConnectorSession;
@@ -38,27 +40,49 @@ import java.util.Optional;
 public class KubernetesSplitManager
         implements ConnectorSplitManager
 {
+    private final KubernetesResources kubernetesResources;
     private final KubernetesLogs kubernetesLogs;
+    private final Duration dynamicFilteringWaitTimeout;
 
     @Inject
-    public KubernetesSplitManager(KubernetesLogs kubernetesLogs)
+    public KubernetesSplitManager(KubernetesResources kubernetesResources, KubernetesLogs kubernetesLogs, KubernetesConfig config)
     {
+        this.kubernetesResources = kubernetesResources;
         this.kubernetesLogs = kubernetesLogs;
+        this.dynamicFilteringWaitTimeout = config.getDynamicFilteringWaitTimeout();
     }
 
     @Override
     public ConnectorSplitSource getSplits(ConnectorTransactionHandle transaction, ConnectorSession session, ConnectorTableHandle table, DynamicFilter dynamicFilter, Constraint constraint)
     {
         return switch ((KubernetesTableHandle) table) {
-            case ResourceTableHandle h -> new FixedSplitSource(new ResourceTableSplit(h));
+            case ResourceTableHandle h -> getSplits(h, dynamicFilter);
             case PodLogsTableHandle h -> getSplits(h);
             default -> throw new IllegalStateException("Unexpected value: " + table);
         };
     }
 
+    public ConnectorSplitSource getSplits(ResourceTableHandle tableHandle, DynamicFilter dynamicFilter)
+    {
+        if (dynamicFilter.getColumnsCovered().isEmpty()) {
+            return new FixedSplitSource(this.kubernetesResources.getSplits(tableHandle));
+        }
+
+        return new ResourceTableSplitSource(
+                dynamicFilter,
+                this.dynamicFilteringWaitTimeout,
+                predicate -> this.kubernetesResources.getSplits(tableHandle.withDynamicFilter(predicate)));
+    }
+
     public ConnectorSplitSource getSplits(PodLogsTableHandle tableHandle)
     {
         var functionHandle = tableHandle.functionHandle();
+        if (tableHandle.constraint().isNone()) {
+            return new FixedSplitSource(List.of());
+        }
+
+        var sinceEpochSecond = tableHandle.sinceEpochSecond();
+        var untilEpochNanos = tableHandle.untilEpochNanos();
         var pods = this.kubernetesLogs.getPods(functionHandle.namespace(), functionHandle.selector());
 
         var splits = pods.stream()
@@ -68,7 +92,12 @@ public class KubernetesSplitManager
                                 functionHandle.namespace(),
                                 Objects.requireNonNull(pod.getMetadata()).getName(),
                                 c.getName(),
-                                tableHandle.limit())))
+                                tableHandle.limit(),
+                                sinceEpochSecond,
+                                untilEpochNanos,
+                                functionHandle.follow(),
+                                functionHandle.duration(),
+                                functionHandle.maxLines())))
                 .filter(split -> functionHandle.container().map(c -> c.equals(split.container())).orElse(true))
                 .toList();
 
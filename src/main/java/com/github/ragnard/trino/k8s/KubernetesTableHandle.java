@@ -17,10 +17,17 @@ package com.github.ragnard.trino.k8s;
 import com.fasterxml.jackson.annotation.JsonSubTypes;
 import com.github.ragnard.trino.k8s.logs.PodLogsTableFunctionHandle;
 import com.github.ragnard.trino.k8s.resources.ResourceTableHandle;
+import io.trino.spi.connector.AggregateFunction;
+import io.trino.spi.connector.AggregationApplicationResult;
+import io.trino.spi.connector.ColumnHandle;
 import io.trino.spi.connector.ConnectorTableHandle;
 import io.trino.spi.connector.Constraint;
 import io.trino.spi.connector.ConstraintApplicationResult;
+import io.trino.spi.connector.ProjectionApplicationResult;
+import io.trino.spi.expression.ConnectorExpression;
 
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalInt;
 
@@ -45,6 +52,21 @@ public interface KubernetesTableHandle
         return Optional.empty();
     }
 
+    default Optional<AggregationApplicationResult<ConnectorTableHandle>> applyAggregation(
+            List<AggregateFunction> aggregates,
+            Map<String, ColumnHandle> assignments,
+            List<List<ColumnHandle>> groupingSets)
+    {
+        return Optional.empty();
+    }
+
+    default Optional<ProjectionApplicationResult<ConnectorTableHandle>> applyProjection(
+            List<ConnectorExpression> projections,
+            Map<String, ColumnHandle> assignments)
+    {
+        return Optional.empty();
+    }
+
     default Optional<ResourceTableHandle> resourceTableHandle()
     {
         return switch (this) {
@@ -13,12 +13,12 @@
  */
 package com.github.ragnard.trino.k8s;
 
-import io.trino.spi.block.Block;
-import io.trino.spi.block.BufferedArrayValueBuilder;
-import io.trino.spi.block.BufferedMapValueBuilder;
-import io.trino.spi.block.SqlMap;
+import io.airlift.slice.Slice;
+import io.trino.spi.block.ArrayBlockBuilder;
+import io.trino.spi.block.BlockBuilder;
+import io.trino.spi.block.Fixed12BlockBuilder;
+import io.trino.spi.block.MapBlockBuilder;
 import io.trino.spi.type.ArrayType;
-import io.trino.spi.type.LongTimestampWithTimeZone;
 import io.trino.spi.type.MapType;
 import io.trino.spi.type.TypeOperators;
 import io.trino.spi.type.VarcharType;
@@ -27,50 +27,101 @@ import java.time.OffsetDateTime;
 import java.util.List;
 import java.util.Map;
 
+import static io.trino.spi.type.DateTimeEncoding.packDateTimeWithZone;
 import static io.trino.spi.type.TimeZoneKey.UTC_KEY;
+import static io.trino.spi.type.TimestampWithTimeZoneType.TIMESTAMP_TZ_MICROS;
+import static io.trino.spi.type.TimestampWithTimeZoneType.TIMESTAMP_TZ_NANOS;
+import static io.trino.spi.type.Timestamps.MILLISECONDS_PER_SECOND;
+import static io.trino.spi.type.Timestamps.NANOSECONDS_PER_MILLISECOND;
+import static io.trino.spi.type.Timestamps.NANOSECONDS_PER_SECOND;
 import static io.trino.spi.type.Timestamps.PICOSECONDS_PER_NANOSECOND;
+import static io.trino.spi.type.Timestamps.round;
 
 public class KubernetesTypes
 {
     public static final ArrayType STRING_ARRAY = new ArrayType(VarcharType.VARCHAR);
-    public static final MapType STRING_MAP = new MapType(VarcharType.VARCHAR, VarcharType.VARCHAR, new TypeOperators());
+    public static final TypeOperators TYPE_OPERATORS = new TypeOperators();
+    public static final MapType STRING_MAP = new MapType(VarcharType.VARCHAR, VarcharType.VARCHAR, TYPE_OPERATORS);
 
     private KubernetesTypes() {}
 
-    public static Block stringArray(List<String> l)
+    public static void writeString(BlockBuilder output, String value)
     {
-        if (l == null) {
-            return null;
+        if (value == null) {
+            output.appendNull();
+            return;
         }
 
-        return BufferedArrayValueBuilder.createBuffered(STRING_ARRAY).build(l.size(), lb -> {
-            l.forEach(v -> VarcharType.VARCHAR.writeString(lb, v));
+        VarcharType.VARCHAR.writeString(output, value);
+    }
+
+    public static void writeSlice(BlockBuilder output, Slice value)
+    {
+        if (value == null) {
+            output.appendNull();
+            return;
+        }
+
+        VarcharType.VARCHAR.writeSlice(output, value);
+    }
+
+    public static void writeStringArray(BlockBuilder output, List<String> values)
+    {
+        if (values == null) {
+            output.appendNull();
+            return;
+        }
+
+        ((ArrayBlockBuilder) output).buildEntry(elementBuilder -> {
+            for (String value : values) {
+                writeString(elementBuilder, value);
+            }
         });
     }
 
-    public static SqlMap stringMap(Map<String, String> m)
+    public static void writeStringMap(BlockBuilder output, Map<String, String> values)
     {
-        if (m == null) {
-            return null;
+        if (values == null) {
+            output.appendNull();
+            return;
         }
 
-        return BufferedMapValueBuilder.createBuffered(STRING_MAP).build(m.size(), (kb, vb) -> {
-            m.forEach((k, v) -> {
-                VarcharType.VARCHAR.writeString(kb, k);
-                VarcharType.VARCHAR.writeString(vb, v);
-            });
+        ((MapBlockBuilder) output).buildEntry((keyBuilder, valueBuilder) -> {
+            for (Map.Entry<String, String> entry : values.entrySet()) {
+                VarcharType.VARCHAR.writeString(keyBuilder, entry.getKey());
+                writeString(valueBuilder, entry.getValue());
+            }
         });
     }
 
-    public static LongTimestampWithTimeZone toTimestamp(OffsetDateTime dateTime)
+    /**
+     * Writes a timestamp to a {@code TIMESTAMP(6) WITH TIME ZONE} block.
+     */
+    public static void writeTimestamp(BlockBuilder output, OffsetDateTime dateTime)
+    {
+        writeTimestamp(output, dateTime, TIMESTAMP_TZ_MICROS.getPrecision());
+    }
+
+    /**
+     * Writes a timestamp rounded to the precision of the block it is written
+     * to, as digits beyond it would compare unequal to any value of the type.
+     */
+    public static void writeTimestamp(BlockBuilder output, OffsetDateTime dateTime, int precision)
     {
         if (dateTime == null) {
-            return null;
+            output.appendNull();
+            return;
         }
 
-        return LongTimestampWithTimeZone.fromEpochSecondsAndFraction(
-                dateTime.toEpochSecond(),
-                (long) dateTime.getNano() * PICOSECONDS_PER_NANOSECOND,
-                UTC_KEY);
+        long nanoOfSecond = round(dateTime.getNano(), TIMESTAMP_TZ_NANOS.getPrecision() - precision);
+        writeTimestamp(output, dateTime.toEpochSecond() + nanoOfSecond / NANOSECONDS_PER_SECOND, (int) (nanoOfSecond % NANOSECONDS_PER_SECOND));
+    }
+
+    public static void writeTimestamp(BlockBuilder output, long epochSecond, int nanoOfSecond)
+    {
+        long epochMillis = Math.multiplyExact(epochSecond, MILLISECONDS_PER_SECOND) + nanoOfSecond / NANOSECONDS_PER_MILLISECOND;
+        int picosOfMilli = (nanoOfSecond % NANOSECONDS_PER_MILLISECOND) * PICOSECONDS_PER_NANOSECOND;
+
+        ((Fixed12BlockBuilder) output).writeFixed12(packDateTimeWithZone(epochMillis, UTC_KEY), picosOfMilli);
     }
 }
@@ -14,68 +14,93 @@
 package com.github.ragnard.trino.k8s.client;
 
 import com.github.ragnard.trino.k8s.KubernetesColumnHandle;
+import com.github.ragnard.trino.k8s.logs.PodLogsPageSource;
 import com.github.ragnard.trino.k8s.logs.PodLogsTable;
-import com.github.ragnard.trino.k8s.logs.PodLogsTableColumn;
 import com.github.ragnard.trino.k8s.logs.PodLogsTableFunctionSplit;
-import com.google.common.collect.ImmutableList;
+import com.github.ragnard.trino.k8s.resources.LabelRequirement;
+import com.github.ragnard.trino.k8s.resources.LabelSelectors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
 import io.kubernetes.client.common.KubernetesObject;
 import io.kubernetes.client.openapi.ApiClient;
 import io.kubernetes.client.openapi.ApiException;
+import io.kubernetes.client.openapi.Pair;
 import io.kubernetes.client.openapi.apis.AppsV1Api;
+import io.kubernetes.client.openapi.apis.BatchV1Api;
 import io.kubernetes.client.openapi.apis.CoreV1Api;
+import io.kubernetes.client.openapi.models.V1Job;
+import io.kubernetes.client.openapi.models.V1LabelSelector;
 import io.kubernetes.client.openapi.models.V1Pod;
 import io.trino.spi.TrinoException;
-import io.trino.spi.connector.InMemoryRecordSet;
-import io.trino.spi.connector.RecordSet;
-import io.trino.spi.type.LongTimestampWithTimeZone;
-import okhttp3.Response;
+import io.trino.spi.connector.ConnectorPageSource;
+import jakarta.annotation.PreDestroy;
 import okhttp3.ResponseBody;
 
-import java.io.BufferedReader;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.time.OffsetDateTime;
-import java.time.format.DateTimeFormatter;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.function.Consumer;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import static io.trino.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
 import static io.trino.spi.StandardErrorCode.NOT_FOUND;
-import static io.trino.spi.type.TimeZoneKey.UTC_KEY;
-import static io.trino.spi.type.Timestamps.PICOSECONDS_PER_NANOSECOND;
-import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 public class KubernetesLogs
 {
     private final CoreV1Api coreApi;
     private final AppsV1Api appsApi;
+    private final BatchV1Api batchApi;
+    private final OwnerIndex ownerIndex;
+    // one thread per open log stream, so that reading them never holds a driver thread
+    private final ExecutorService logReaderExecutor = Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+            .setNameFormat("kubernetes-log-reader-%s")
+            .setDaemon(true)
+            .build());
 
     @Inject
-    public KubernetesLogs(ApiClient apiClient)
+    public KubernetesLogs(ApiClient apiClient, OwnerIndex ownerIndex)
     {
         this.coreApi = new CoreV1Api(apiClient);
         this.appsApi = new AppsV1Api(apiClient);
+        this.batchApi = new BatchV1Api(apiClient);
+        this.ownerIndex = ownerIndex;
+    }
+
+    @PreDestroy
+    public void stop()
+    {
+        this.logReaderExecutor.shutdownNow();
     }
 
     public List<V1Pod> getPods(String namespace, String selector)
     {
         try {
             var parts = selector.split("/", 2);
-            if (parts.length == 1) {
-                return getPodsByName(namespace, selector);
+            var kind = parts.length == 1 ? "pod" : parts[0].toLowerCase();
+            var name = parts.length == 1 ? selector : parts[1];
+
+            var indexed = this.ownerIndex.getPods(namespace, kind, name);
+            if (indexed.isPresent()) {
+                return indexed.get();
             }
 
-            return switch (parts[0].toLowerCase()) {
-                case "pod" -> getPodsByName(namespace, parts[1]);
-                case "deployment" -> getPodsByDeployment(namespace, parts[1]);
-                case "statefulset" -> getPodsByStatefulSet(namespace, parts[1]);
-                case "replicaset" -> getPodsByReplicaSet(namespace, parts[1]);
-                default -> throw new IllegalStateException("Unexpected value: " + parts[0].toLowerCase());
+            return switch (kind) {
+                case "pod" -> getPodsByName(namespace, name);
+                case "deployment" -> getPodsByDeployment(namespace, name);
+                case "statefulset" -> getPodsByStatefulSet(namespace, name);
+                case "daemonset" -> getPodsByDaemonSet(namespace, name);
+                case "replicaset" -> getPodsByReplicaSet(namespace, name);
+                case "job" -> getPodsByJob(namespace, name);
+                case "cronjob" -> getPodsByCronJob(namespace, name);
+                case "label" -> getPodsBySelector(namespace, name);
+                default -> throw new IllegalStateException("Unexpected value: " + kind);
             };
         }
         catch (ApiException e) {
@@ -91,43 +116,85 @@ public class KubernetesLogs
             throws ApiException
     {
         var deployment = this.appsApi.readNamespacedDeployment(deploymentName, namespace, null);
+        var selector = toLabelSelector(deployment.getSpec().getSelector());
 
-        var replicaSets = this.appsApi.listNamespacedReplicaSet(namespace, null, null, null,
-                        null, null, null, null, null, null, null)
+        // the replica sets of a deployment carry its pod template labels, so they match its selector too
+        var replicaSetUids = this.appsApi.listNamespacedReplicaSet(namespace, null, null, null,
+                        null, selector, null, null, null, null, null)
                 .getItems()
                 .stream()
-                .filter(hasOwner(deployment.getMetadata().getUid()));
-
-        var replicaSetUids = replicaSets
+                .filter(hasOwner(deployment.getMetadata().getUid()))
                 .map(s -> s.getMetadata().getUid())
                 .collect(Collectors.toSet());
 
-        return getPods(namespace).stream().filter(hasOwner(replicaSetUids)).toList();
+        return getPodsBySelector(namespace, selector).stream().filter(hasOwner(replicaSetUids)).toList();
     }
 
     private List<V1Pod> getPodsByStatefulSet(String namespace, String statefulsetName)
             throws ApiException
     {
-        var statefulset = this.appsApi.readNamespacedStatefulSet(namespace, statefulsetName, null);
-        var statefulsetUid = statefulset.getMetadata().getUid();
+        var statefulset = this.appsApi.readNamespacedStatefulSet(statefulsetName, namespace, null);
+        var selector = toLabelSelector(statefulset.getSpec().getSelector());
+
+        return getPodsBySelector(namespace, selector).stream().filter(hasOwner(statefulset.getMetadata().getUid())).toList();
+    }
+
+    private List<V1Pod> getPodsByDaemonSet(String namespace, String daemonsetName)
+            throws ApiException
+    {
+        var daemonset = this.appsApi.readNamespacedDaemonSet(daemonsetName, namespace, null);
+        var selector = toLabelSelector(daemonset.getSpec().getSelector());
+
+        return getPodsBySelector(namespace, selector).stream().filter(hasOwner(daemonset.getMetadata().getUid())).toList();
+    }
+
+    private List<V1Pod> getPodsByJob(String namespace, String jobName)
+            throws ApiException
+    {
+        return getPodsByJob(namespace, this.batchApi.readNamespacedJob(jobName, namespace, null));
+    }
+
+    private List<V1Pod> getPodsByJob(String namespace, V1Job job)
+            throws ApiException
+    {
+        var selector = toLabelSelector(job.getSpec().getSelector());
+
+        return getPodsBySelector(namespace, selector).stream().filter(hasOwner(job.getMetadata().getUid())).toList();
+    }
+
+    private List<V1Pod> getPodsByCronJob(String namespace, String cronjobName)
+            throws ApiException
+    {
+        var cronjob = this.batchApi.readNamespacedCronJob(cronjobName, namespace, null);
+
+        var jobs = this.batchApi.listNamespacedJob(namespace, null, null, null,
+                        null, null, null, null, null, null, null)
+                .getItems()
+                .stream()
+                .filter(hasOwner(cronjob.getMetadata().getUid()))
+                .toList();
 
-        return getPods(namespace).stream().filter(hasOwner(statefulsetUid)).toList();
+        var pods = new ArrayList<V1Pod>();
+        for (V1Job job : jobs) {
+            pods.addAll(getPodsByJob(namespace, job));
+        }
+        return pods;
     }
 
     private List<V1Pod> getPodsByReplicaSet(String namespace, String replicasetName)
             throws ApiException
     {
         var replicaSet = this.appsApi.readNamespacedReplicaSet(replicasetName, namespace, null);
-        var replicaSetUid = replicaSet.getMetadata().getUid();
+        var selector = toLabelSelector(replicaSet.getSpec().getSelector());
 
-        return getPods(namespace).stream().filter(hasOwner(replicaSetUid)).toList();
+        return getPodsBySelector(namespace, selector).stream().filter(hasOwner(replicaSet.getMetadata().getUid())).toList();
     }
 
-    private List<V1Pod> getPods(String namespace)
+    private List<V1Pod> getPodsBySelector(String namespace, String labelSelector)
             throws ApiException
     {
         return this.coreApi.listNamespacedPod(namespace, null, null, null,
-                null, null, null, null, null, null, null).getItems();
+                null, labelSelector, null, null, null, null, null).getItems();
     }
 
     public List<V1Pod> getPodsByName(String namespace, String pod)
@@ -136,68 +203,81 @@ public class KubernetesLogs
         return List.of(this.coreApi.readNamespacedPod(pod, namespace, null));
     }
 
+    private static String toLabelSelector(V1LabelSelector selector)
+    {
+        var requirements = LabelSelectors.fromLabelSelector(selector);
+        if (requirements.isEmpty()) {
+            // an empty selector selects every pod; workloads are required to have a non-empty one
+            throw new TrinoException(GENERIC_INTERNAL_ERROR, "Workload has an empty pod selector");
+        }
+        return LabelRequirement.toSelector(requirements);
+    }
+
     private static Predicate<KubernetesObject> hasOwner(String uid)
     {
-        return object -> requireNonNull(object.getMetadata().getOwnerReferences())
-                .stream()
-                .anyMatch(r -> uid.equals(r.getUid()));
+        return hasOwner(Set.of(uid));
     }
 
     private static Predicate<KubernetesObject> hasOwner(Set<String> uids)
     {
-        return object -> requireNonNull(object.getMetadata().getOwnerReferences())
+        return object -> Optional.ofNullable(object.getMetadata().getOwnerReferences())
+                .orElse(List.of())
                 .stream()
                 .anyMatch(r -> uids.contains(r.getUid()));
     }
 
-    public RecordSet getLogs(PodLogsTableFunctionSplit split, List<KubernetesColumnHandle> columnHandles)
+    public ConnectorPageSource getLogs(PodLogsTableFunctionSplit split, List<KubernetesColumnHandle> columnHandles)
     {
         var columns = columnHandles.stream().map(PodLogsTable::lookup).toList();
-        var types = columns.stream().map(PodLogsTableColumn::type).toList();
 
-        var records = ImmutableList.<List<?>>builder();
-
-        consumePodLog(split.namespace(), split.pod(), split.container(), split.limitOrNull(), line -> {
-            var record = columns.stream()
-                    .map(c -> c.getValue(line))
-                    .toList();
-
-            records.add(record);
-        });
-
-        return new InMemoryRecordSet(types, records.build());
+        return new PodLogsPageSource(split, columns, () -> openPodLog(split), logReaderExecutor);
     }
 
-    private void consumePodLog(String namespace, String name, String container, Integer limit, Consumer<PodLogLine> consumer)
+    private ResponseBody openPodLog(PodLogsTableFunctionSplit split)
     {
+        // built by hand, as readNamespacedPodLogCall does not expose sinceTime
+        var apiClient = this.coreApi.getApiClient();
+        var path = "/api/v1/namespaces/%s/pods/%s/log".formatted(apiClient.escapeString(split.namespace()), apiClient.escapeString(split.pod()));
+
+        var queryParams = new ArrayList<Pair>();
+        queryParams.add(new Pair("container", split.container()));
+        queryParams.add(new Pair("timestamps", "true"));
+        if (split.follow()) {
+            queryParams.add(new Pair("follow", "true"));
+        }
+        split.limit().ifPresent(limit -> queryParams.add(new Pair("tailLines", String.valueOf(limit))));
+        split.sinceEpochSecond().ifPresent(since -> queryParams.add(new Pair("sinceTime", Instant.ofEpochSecond(since).toString())));
+
         try {
-            var call = this.coreApi.readNamespacedPodLogCall(
-                    name,
-                    namespace,
-                    container,
-                    false, // follow
-                    false, // insecureSkipTLSVerifyBackend
-                    null, // limitBytes
-                    "false", // pretty
-                    false, // previous
-                    null, // sinceSeconds
-                    limit, // tailLines
-                    true, // timestamps
+            var call = apiClient.buildCall(
+                    path,
+                    "GET",
+                    queryParams,
+                    List.of(),
+                    null,
+                    Map.of("Accept", "text/plain"),
+                    Map.of(),
+                    Map.of(),
+                    new String[] {"BearerToken"},
                     null);
 
-            try (var response = call.execute()) {
-                if (!response.isSuccessful()) {
-                    throw new RuntimeException("log call failed: " + Optional.ofNullable(response.networkResponse()).map(Response::code).orElse(null));
-                }
-                try (var reader = new BufferedReader(new InputStreamReader(Optional.ofNullable(response.body())
-                        .map(ResponseBody::byteStream)
-                        .orElseThrow(() -> new TrinoException(GENERIC_INTERNAL_ERROR, "Pod log response empty body"))))) {
-                    reader.lines().map(l -> PodLogLine.from(namespace, container, l)).forEach(consumer);
+            // bounds the whole call including reading the body, which ends a followed stream
+            split.duration().ifPresent(duration -> call.timeout().timeout(duration.roundTo(MILLISECONDS), MILLISECONDS));
+
+            var response = call.execute();
+            if (!response.isSuccessful()) {
+                response.close();
+                if (response.code() == 404) {
+                    throw new TrinoException(NOT_FOUND, "Kubernetes object not found");
                 }
+                throw new TrinoException(GENERIC_INTERNAL_ERROR, "Pod log call failed: " + response.code());
             }
-            catch (IOException e) {
-                throw new TrinoException(GENERIC_INTERNAL_ERROR, "Retrieving pod logs", e);
-            }
+
+            return Optional.ofNullable(response.body())
+                    .orElseThrow(() -> new TrinoException(GENERIC_INTERNAL_ERROR, "Pod log response empty body"));
+        }
+        catch (IOException e) {
+            throw new TrinoException(GENERIC_INTERNAL_ERROR, "Retrieving pod logs", e);
         }
         catch (ApiException e) {
             if (e.getCode() == 404) {
@@ -207,29 +287,4 @@ public class KubernetesLogs
             throw new TrinoException(GENERIC_INTERNAL_ERROR, "Kubernetes API error: %d".formatted(e.getCode()));
         }
     }
-
-    public record PodLogLine(String namespace, String container, OffsetDateTime timestamp, String log)
-    {
-        public static PodLogLine from(String namespace, String container, String line)
-        {
-            var parts = line.split(" ", 2);
-            var timestamp = OffsetDateTime.parse(parts[0], DateTimeFormatter.ISO_OFFSET_DATE_TIME);
-            var log = parts[1];
-
-            return new PodLogLine(namespace, container, timestamp, log);
-        }
-    }
-
-    public static String removeAnsiCodes(String input)
-    {
-        return input.replaceAll("\u001B\\[[;\\d]*[ -/]*[@-~]", "");
-    }
-
-    private static LongTimestampWithTimeZone toTimestampWithZone(OffsetDateTime timestamp)
-    {
-        return LongTimestampWithTimeZone.fromEpochSecondsAndFraction(
-                timestamp.toEpochSecond(),
-                (long) timestamp.getNano() * PICOSECONDS_PER_NANOSECOND,
-                UTC_KEY);
-    }
 }
@@ -0,0 +1,251 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.ragnard.trino.k8s.client;
+
+import com.github.ragnard.trino.k8s.KubernetesConfig;
+import com.github.ragnard.trino.k8s.resources.ResourceTable;
+import com.google.common.collect.ImmutableSet;
+import com.google.inject.Inject;
+import io.airlift.log.Logger;
+import io.kubernetes.client.informer.ListerWatcher;
+import io.kubernetes.client.informer.SharedIndexInformer;
+import io.kubernetes.client.informer.SharedInformerFactory;
+import io.kubernetes.client.informer.cache.Caches;
+import io.kubernetes.client.openapi.ApiClient;
+import io.kubernetes.client.openapi.ApiException;
+import io.kubernetes.client.util.CallGeneratorParams;
+import io.kubernetes.client.util.Watch;
+import io.kubernetes.client.util.Watchable;
+import io.kubernetes.client.util.generic.dynamic.DynamicKubernetesApi;
+import io.kubernetes.client.util.generic.dynamic.DynamicKubernetesListObject;
+import io.kubernetes.client.util.generic.dynamic.DynamicKubernetesObject;
+import io.kubernetes.client.util.generic.options.ListOptions;
+import io.trino.spi.connector.SchemaTableName;
+import jakarta.annotation.PreDestroy;
+
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Keeps an informer (LIST+WATCH) backed copy of the tables listed in
+ * {@code kubernetes.cache.tables}, so scans of those tables can be served
+ * locally instead of issuing a full LIST against the API server.
+ * <p>
+ * Informers are started lazily on first use, on every node that scans a
+ * cached table, so a cluster of N workers runs N watches per cached table
+ * and holds N copies of it, one in the heap of each worker.
+ * <p>
+ * The cache is served for as long as its watch is healthy. It is behind,
+ * and callers are expected to fall back to listing from the API server,
+ * until the informer has synced, after its watch failed until the next
+ * successful list or watch, and when it has not heard from the API server
+ * for longer than {@code kubernetes.cache.max-staleness}. The informer
+ * relists and rewatches on its own, so it is never restarted.
+ */
+public class KubernetesResourceCache
+{
+    private static final Logger log = Logger.get(KubernetesResourceCache.class);
+
+    private final ApiClient apiClient;
+    private final Set<String> cachedTables;
+    private final long maxStalenessNanos;
+
+    private final ConcurrentMap<SchemaTableName, CachedResource> resources = new ConcurrentHashMap<>();
+
+    @Inject
+    public KubernetesResourceCache(ApiClient apiClient, KubernetesConfig config)
+    {
+        this.apiClient = requireNonNull(apiClient, "apiClient is null");
+        this.cachedTables = ImmutableSet.copyOf(config.getCachedTables());
+        this.maxStalenessNanos = config.getCacheMaxStaleness().roundTo(NANOSECONDS);
+    }
+
+    public boolean isCached(ResourceTable table)
+    {
+        return cachedTables.contains(table.schemaTableName().getTableName());
+    }
+
+    /**
+     * Returns the cached objects of a table, optionally restricted to a
+     * namespace, or empty if the table is not cached or the cache is not
+     * currently usable.
+     */
+    public Optional<List<DynamicKubernetesObject>> list(ResourceTable table, Optional<String> namespace)
+    {
+        if (!isCached(table)) {
+            return Optional.empty();
+        }
+
+        var cached = resources.computeIfAbsent(table.schemaTableName(), _ -> CachedResource.start(apiClient, table));
+
+        if (!cached.informer().hasSynced()) {
+            return Optional.empty();
+        }
+        if (cached.health().isBehind(maxStalenessNanos)) {
+            log.debug("Not serving %s from its cache while its watch is behind", table.schemaTableName());
+            return Optional.empty();
+        }
+
+        var indexer = cached.informer().getIndexer();
+
+        return Optional.of(namespace
+                .map(ns -> indexer.byIndex(Caches.NAMESPACE_INDEX, ns))
+                .orElseGet(indexer::list));
+    }
+
+    @PreDestroy
+    public void stop()
+    {
+        resources.values().forEach(CachedResource::stop);
+        resources.clear();
+    }
+
+    private record CachedResource(SharedInformerFactory factory, SharedIndexInformer<DynamicKubernetesObject> informer, WatchHealth health)
+    {
+        static CachedResource start(ApiClient apiClient, ResourceTable table)
+        {
+            var resource = table.resource();
+            var api = new DynamicKubernetesApi(resource.group(), resource.version(), resource.resourcePlural(), apiClient);
+            var health = new WatchHealth();
+
+            // SharedInformerFactory registers informers by object class, so every dynamic
+            // resource needs a factory of its own
+            var factory = new SharedInformerFactory(apiClient);
+            var informer = factory.sharedIndexInformerFor(
+                    new MonitoredListerWatcher(api, health),
+                    DynamicKubernetesObject.class,
+                    0,
+                    (_, failure) -> {
+                        log.debug(failure, "Watch of %s failed", table.schemaTableName());
+                        health.failed();
+                    });
+            factory.startAllRegisteredInformers();
+
+            return new CachedResource(factory, informer, health);
+        }
+
+        void stop()
+        {
+            factory.stopAllRegisteredInformers();
+        }
+    }
+
+    /**
+     * Tracks when the informer last heard from the API server, and whether
+     * its watch has failed since.
+     */
+    private static final class WatchHealth
+    {
+        private volatile long lastContactNanos = System.nanoTime();
+        private volatile boolean failed;
+
+        void contact()
+        {
+            lastContactNanos = System.nanoTime();
+            failed = false;
+        }
+
+        void failed()
+        {
+            failed = true;
+        }
+
+        boolean isBehind(long maxStalenessNanos)
+        {
+            return failed || System.nanoTime() - lastContactNanos > maxStalenessNanos;
+        }
+    }
+
+    /**
+     * Lists and watches all namespaces like the lister-watcher the informer
+     * factory creates for an API, and records every successful list, watch
+     * and watch event. The server ends each watch after a few minutes and
+     * the informer starts a new one, so even a quiet resource is heard from
+     * regularly.
+     */
+    private record MonitoredListerWatcher(DynamicKubernetesApi api, WatchHealth health)
+            implements ListerWatcher<DynamicKubernetesObject, DynamicKubernetesListObject>
+    {
+        @Override
+        public DynamicKubernetesListObject list(CallGeneratorParams params)
+                throws ApiException
+        {
+            var list = api.list(options(params)).throwsApiException().getObject();
+            health.contact();
+            return list;
+        }
+
+        @Override
+        public Watchable<DynamicKubernetesObject> watch(CallGeneratorParams params)
+                throws ApiException
+        {
+            var watch = api.watch(options(params));
+            health.contact();
+            return new MonitoredWatch(watch, health);
+        }
+
+        private static ListOptions options(CallGeneratorParams params)
+        {
+            var options = new ListOptions();
+            options.setResourceVersion(params.resourceVersion);
+            options.setTimeoutSeconds(params.timeoutSeconds);
+            return options;
+        }
+    }
+
+    private record MonitoredWatch(Watchable<DynamicKubernetesObject> delegate, WatchHealth health)
+            implements Watchable<DynamicKubernetesObject>
+    {
+        @Override
+        public boolean hasNext()
+        {
+            return delegate.hasNext();
+        }
+
+        @Override
+        public Watch.Response<DynamicKubernetesObject> next()
+        {
+            var event = delegate.next();
+            // such as an expired resource version, after which the informer relists
+            if ("ERROR".equals(event.type)) {
+                health.failed();
+            }
+            else {
+                health.contact();
+            }
+            return event;
+        }
+
+        @Override
+        public Iterator<Watch.Response<DynamicKubernetesObject>> iterator()
+        {
+            return this;
+        }
+
+        @Override
+        public void close()
+                throws IOException
+        {
+            delegate.close();
+        }
+    }
+}
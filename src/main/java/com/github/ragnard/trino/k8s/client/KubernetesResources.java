@@ -14,69 +14,108 @@
 package com.github.ragnard.trino.k8s.client;
 
 import com.github.ragnard.trino.k8s.KubernetesColumnHandle;
+import com.github.ragnard.trino.k8s.KubernetesConfig;
+import com.github.ragnard.trino.k8s.resources.FieldRequirement;
+import com.github.ragnard.trino.k8s.resources.FieldSelectors;
+import com.github.ragnard.trino.k8s.resources.LabelRequirement;
 import com.github.ragnard.trino.k8s.resources.ResourceTableHandle;
-import com.github.ragnard.trino.k8s.KubernetesTableHandle;
+import com.github.ragnard.trino.k8s.resources.ResourceRow;
 import com.github.ragnard.trino.k8s.resources.ResourceTable;
 import com.github.ragnard.trino.k8s.resources.ResourceTableColumn;
+import com.github.ragnard.trino.k8s.resources.ResourceTableColumns;
+import com.github.ragnard.trino.k8s.resources.ResourceTablePageSource;
+import com.github.ragnard.trino.k8s.resources.ResourceTableSplit;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Iterators;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.inject.Inject;
 import io.airlift.slice.Slice;
-import io.kubernetes.client.Discovery;
 import io.kubernetes.client.openapi.ApiClient;
 import io.kubernetes.client.openapi.ApiException;
+import io.kubernetes.client.openapi.apis.CoreV1Api;
+import io.kubernetes.client.openapi.models.V1Namespace;
+import io.kubernetes.client.openapi.models.V1ObjectMeta;
 import io.kubernetes.client.util.generic.dynamic.DynamicKubernetesApi;
 import io.kubernetes.client.util.generic.dynamic.DynamicKubernetesObject;
 import io.kubernetes.client.util.generic.options.ListOptions;
+import io.trino.spi.Page;
 import io.trino.spi.TrinoException;
 import io.trino.spi.connector.ColumnHandle;
-import io.trino.spi.connector.ColumnMetadata;
-import io.trino.spi.connector.InMemoryRecordSet;
-import io.trino.spi.connector.RecordSet;
+import io.trino.spi.connector.ConnectorPageSource;
+import io.trino.spi.connector.DynamicFilter;
+import io.trino.spi.connector.FixedPageSource;
 import io.trino.spi.connector.SchemaTableName;
+import io.trino.spi.predicate.Domain;
 import io.trino.spi.predicate.TupleDomain;
+import jakarta.annotation.PreDestroy;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Stream;
 
+import static com.github.ragnard.trino.k8s.resources.ResourceTableColumns.NAME;
 import static com.github.ragnard.trino.k8s.resources.ResourceTableColumns.NAMESPACE;
 import static com.google.common.collect.ImmutableList.toImmutableList;
-import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static io.trino.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
 import static io.trino.spi.StandardErrorCode.TABLE_NOT_FOUND;
+import static io.trino.spi.type.BigintType.BIGINT;
 
 public class KubernetesResources
 {
     private final ApiClient apiClient;
-
-    private final ImmutableMap<SchemaTableName, ResourceTable> tables;
+    private final ResourceDiscovery discovery;
+    private final KubernetesResourceCache resourceCache;
+    private final int listPageSize;
+    private final boolean splitPerNamespace;
+    private final ExecutorService lookupExecutor;
 
     public static final String RESOURCES_SCHEMA = "resources";
 
     @Inject
-    public KubernetesResources(ApiClient apiClient)
+    public KubernetesResources(ApiClient apiClient, ResourceDiscovery discovery, KubernetesResourceCache resourceCache, KubernetesConfig config)
     {
         this.apiClient = apiClient;
-        this.tables = loadTables();
+        this.discovery = discovery;
+        this.resourceCache = resourceCache;
+        this.listPageSize = config.getListPageSize();
+        this.splitPerNamespace = config.isSplitPerNamespace();
+        this.lookupExecutor = Executors.newFixedThreadPool(config.getLookupConcurrency(), new ThreadFactoryBuilder()
+                .setNameFormat("kubernetes-lookup-%s")
+                .setDaemon(true)
+                .build());
     }
 
-    public List<SchemaTableName> listTables()
+    @PreDestroy
+    public void stop()
     {
-        return this.tables.keySet().stream().toList();
+        this.lookupExecutor.shutdownNow();
     }
 
-    public Optional<ResourceTable> lookupTable(KubernetesTableHandle tableHandle)
+    public List<SchemaTableName> listTables()
     {
-        return tableHandle.resourceTableHandle().map(h -> this.tables.get(h.schemaTableName()));
+        return this.discovery.getTables().keySet().stream().toList();
     }
 
     public Optional<ResourceTable> lookupTable(SchemaTableName schemaTableName)
     {
-        return Optional.ofNullable(this.tables.get(schemaTableName));
+        return this.discovery.getTable(schemaTableName);
     }
 
-    public ResourceTable lookupTableOrThrow(ResourceTableHandle tableHandle)
+    /**
+     * Returns the table of a handle from the descriptor it carries, without
+     * consulting discovery, so that it can be used on workers.
+     */
+    public ResourceTable getTable(ResourceTableHandle tableHandle)
     {
-        return lookupTableOrThrow(tableHandle.schemaTableName());
+        return ResourceTable.from(tableHandle.resource());
     }
 
     public ResourceTable lookupTableOrThrow(SchemaTableName schemaTableName)
@@ -85,80 +124,347 @@ public class KubernetesResources
                 .orElseThrow(() -> new TrinoException(TABLE_NOT_FOUND, "Table not found: %s".formatted(schemaTableName)));
     }
 
-    public ImmutableMap<SchemaTableName, ResourceTable> loadTables()
+    public List<ResourceTableSplit> getSplits(ResourceTableHandle handle)
+    {
+        var table = this.getTable(handle);
+        var namespaceDomain = getNamespaceDomain(handle.constraint());
+
+        List<Optional<String>> namespaces;
+        if (handle.countOnly()) {
+            // a pushed down count must produce exactly one row, so it is computed by a single split
+            namespaces = List.of(Optional.empty());
+        }
+        else if (handle.constraint().isNone()) {
+            namespaces = List.of();
+        }
+        else if (!isNamespaced(table)) {
+            // cluster scoped objects have no namespace, so they never match a namespace predicate
+            namespaces = namespaceDomain.isPresent() ? List.of() : List.of(Optional.empty());
+        }
+        else if (namespaceDomain.isPresent()) {
+            namespaces = getNamespaces(namespaceDomain.get());
+        }
+        else if (isSplitPerNamespace(table)) {
+            namespaces = listNamespaces().stream()
+                    .map(Optional::of)
+                    .collect(toImmutableList());
+        }
+        else {
+            namespaces = List.of(Optional.empty());
+        }
+
+        return namespaces.stream()
+                .map(namespace -> new ResourceTableSplit(handle, namespace))
+                .collect(toImmutableList());
+    }
+
+    /**
+     * Returns whether {@link #getSplits} creates at most one split for the
+     * handle, without listing namespaces.
+     */
+    public boolean isSingleSplit(ResourceTableHandle handle)
+    {
+        var table = this.getTable(handle);
+
+        if (handle.countOnly() || handle.constraint().isNone() || !isNamespaced(table)) {
+            return true;
+        }
 
+        return getNamespaceDomain(handle.constraint())
+                .map(domain -> domain.getValues().getDiscreteSet().size() <= 1)
+                .orElseGet(() -> !isSplitPerNamespace(table));
+    }
+
+    private boolean isSplitPerNamespace(ResourceTable table)
     {
-        try {
-            Discovery discovery = new Discovery(this.apiClient);
+        // cached tables are served locally, so there is nothing to gain from fanning out
+        return splitPerNamespace && !this.resourceCache.isCached(table);
+    }
 
-            var response = discovery.findAll();
+    private static boolean isNamespaced(ResourceTable table)
+    {
+        return table.resource().namespaced();
+    }
 
-            return response.stream()
-                    .map(ResourceTable::from)
-                    .collect(toImmutableMap(ResourceTable::schemaTableName, v -> v));
+    private List<String> listNamespaces()
+    {
+        try {
+            var namespaces = new CoreV1Api(this.apiClient).listNamespace(null, null, null, null, null, null, null, null, null, null);
+
+            return namespaces.getItems().stream()
+                    .map(V1Namespace::getMetadata)
+                    .map(V1ObjectMeta::getName)
+                    .collect(toImmutableList());
         }
         catch (ApiException e) {
-            throw new RuntimeException(e);
+            throw new TrinoException(GENERIC_INTERNAL_ERROR, "Kubernetes API error: %d".formatted(e.getCode()), e);
         }
     }
 
-    public RecordSet execute(ResourceTableHandle handle, List<KubernetesColumnHandle> columnHandles)
+    public ConnectorPageSource createPageSource(ResourceTableHandle handle, Optional<String> namespace, List<KubernetesColumnHandle> columnHandles, DynamicFilter dynamicFilter)
     {
-        var table = this.lookupTableOrThrow(handle);
+        var table = this.getTable(handle);
+
+        if (handle.countOnly()) {
+            return createCountPageSource(table, handle);
+        }
 
         var columns = columnHandles.stream()
                 .map(table::lookupColumn)
                 .collect(toImmutableList());
 
-        var columnMetadata = columns.stream()
-                .map(ResourceTableColumn::toColumnMetadata)
-                .toList();
+        return new ResourceTablePageSource(table, columns, objects(table, namespace, handle, columns), dynamicFilter);
+    }
 
-        var resource = table.resource();
+    private Iterator<List<ResourceRow>> objects(ResourceTable table, Optional<String> namespace, ResourceTableHandle handle, List<ResourceTableColumn> columns)
+    {
+        var names = getNames(handle);
+        var labelSelector = handle.labelSelector();
+        var fieldSelector = getFieldSelector(handle);
 
-        var dynamicApi = new DynamicKubernetesApi(resource.getGroup(), resource.getPreferredVersion(), resource.getResourcePlural(), this.apiClient);
+        var cached = this.resourceCache.list(table, namespace);
+        if (cached.isPresent()) {
+            return rows(filter(cached.get(), names, labelSelector, fieldSelector, handle.limit()));
+        }
 
-        var options = new ListOptions();
-        handle.limit().ifPresent(options::setLimit);
+        if (names.isPresent() && (namespace.isPresent() || !isNamespaced(table))) {
+            var objects = get(table, namespace, names.get());
+            return rows(filter(objects, Optional.empty(), labelSelector, fieldSelector, handle.limit()));
+        }
 
-        var namespace = getNamespace(handle.constraint());
+        if (names.isPresent() && names.get().size() > 1) {
+            // without a namespace the objects cannot be fetched by name, and a field selector
+            // matches a single name, so list the namespaces and match names here
+            var listed = Iterators.concat(Iterators.transform(
+                    list(table, namespace, labelSelector, fieldSelector, OptionalInt.empty(), columns),
+                    List::iterator));
+            Iterator<ResourceRow> matching = Iterators.filter(listed, row -> names.get().contains(row.metadata().getName()));
+            if (handle.limit().isPresent()) {
+                matching = Iterators.limit(matching, handle.limit().getAsInt());
+            }
+            return Iterators.partition(matching, listPageSize);
+        }
 
-        var result = namespace
-                .map(ns -> dynamicApi.list(ns, options))
-                .orElseGet(() -> dynamicApi.list(options));
+        return list(table, namespace, labelSelector, fieldSelector, handle.limit(), columns);
+    }
 
-        var records = ImmutableList.<List<?>>builder();
-        //var builder = InMemoryRecordSet.builder(columnMetadata);
+    private Iterator<List<ResourceRow>> rows(List<DynamicKubernetesObject> objects)
+    {
+        return Iterators.partition(Iterators.transform(objects.iterator(), ResourceRow::of), listPageSize);
+    }
 
-        for (DynamicKubernetesObject object : result.getObject().getItems()) {
-            var values = columns
-                    .stream()
-                    .map(c -> c.getValue(table, object))
-                    .toList();
+    private ConnectorPageSource createCountPageSource(ResourceTable table, ResourceTableHandle handle)
+    {
+        List<Optional<String>> namespaces;
+        var namespaceDomain = getNamespaceDomain(handle.constraint());
+        if (handle.constraint().isNone() || (!isNamespaced(table) && namespaceDomain.isPresent())) {
+            namespaces = List.of();
+        }
+        else if (namespaceDomain.isPresent()) {
+            namespaces = getNamespaces(namespaceDomain.get());
+        }
+        else {
+            namespaces = List.of(Optional.empty());
+        }
 
-            //builder.addRow(values);
-            records.add(values);
+        long count = 0;
+        for (Optional<String> namespace : namespaces) {
+            count += count(table, namespace, handle);
         }
 
-        var types = columnMetadata.stream().map(ColumnMetadata::getType).toList();
-        return new InMemoryRecordSet(types, records.build());
+        var block = BIGINT.createFixedSizeBlockBuilder(1);
+        BIGINT.writeLong(block, count);
+        return new FixedPageSource(List.of(new Page(block.build())));
     }
 
-    private Optional<String> getNamespace(TupleDomain<ColumnHandle> constraint)
+    private long count(ResourceTable table, Optional<String> namespace, ResourceTableHandle handle)
     {
-        var namespaceDomain = constraint.getDomain(NAMESPACE.toColumnHandle(), NAMESPACE.type());
-        if (namespaceDomain == null) {
+        if (getNames(handle).isPresent()) {
+            return countObjects(objects(table, namespace, handle, List.of()));
+        }
+
+        var labelSelector = handle.labelSelector();
+        var fieldSelector = getFieldSelector(handle);
+
+        var cached = this.resourceCache.list(table, namespace);
+        if (cached.isPresent()) {
+            return filter(cached.get(), Optional.empty(), labelSelector, fieldSelector, OptionalInt.empty()).size();
+        }
+
+        var call = new ResourceListCall(this.apiClient, table.resource(), namespace, true, new ResourceListDecoder(false, false, Set.of()));
+        var labels = labelSelector.isEmpty() ? Optional.<String>empty() : Optional.of(LabelRequirement.toSelector(labelSelector));
+        var fields = fieldSelector.isEmpty() ? Optional.<String>empty() : Optional.of(FieldRequirement.toSelector(fieldSelector));
+
+        // a single item page is enough when the server reports how many items remain
+        var firstPage = new ListOptions();
+        firstPage.setLimit(1);
+        labels.ifPresent(firstPage::setLabelSelector);
+        fields.ifPresent(firstPage::setFieldSelector);
+
+        ResourceList list;
+        try {
+            list = call.list(firstPage);
+        }
+        catch (ApiException e) {
+            throw new TrinoException(GENERIC_INTERNAL_ERROR, "Kubernetes API error: %d".formatted(e.getCode()), e);
+        }
+
+        if (list.continueToken().isEmpty()) {
+            return list.items().size();
+        }
+        if (list.remainingItemCount().isPresent()) {
+            return list.items().size() + list.remainingItemCount().getAsLong();
+        }
+
+        // the count is not reported for selector queries, so count the objects from their metadata
+        return countObjects(new ResourceListPages(call, labels, fields, listPageSize, OptionalInt.empty()));
+    }
+
+    private static long countObjects(Iterator<? extends List<?>> batches)
+    {
+        long count = 0;
+        while (batches.hasNext()) {
+            count += batches.next().size();
+        }
+        return count;
+    }
+
+    /**
+     * Fetches objects by name, with one GET per name. Objects that do not
+     * exist are skipped, as are empty names, which no object can have and
+     * which the client rejects.
+     */
+    private List<DynamicKubernetesObject> get(ResourceTable table, Optional<String> namespace, Set<String> names)
+    {
+        var resource = table.resource();
+        var dynamicApi = new DynamicKubernetesApi(resource.group(), resource.version(), resource.resourcePlural(), this.apiClient);
+
+        if (namespace.filter(String::isEmpty).isPresent()) {
+            return List.of();
+        }
+
+        var futures = names.stream()
+                .filter(name -> !name.isEmpty())
+                .map(name -> CompletableFuture.supplyAsync(() -> get(dynamicApi, namespace, name), this.lookupExecutor))
+                .collect(toImmutableList());
+
+        try {
+            return futures.stream()
+                    .map(CompletableFuture::join)
+                    .flatMap(Optional::stream)
+                    .collect(toImmutableList());
+        }
+        catch (CompletionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof TrinoException trinoException) {
+                throw trinoException;
+            }
+            throw new TrinoException(GENERIC_INTERNAL_ERROR, "Fetching Kubernetes objects failed", e.getCause());
+        }
+    }
+
+    private static Optional<DynamicKubernetesObject> get(DynamicKubernetesApi dynamicApi, Optional<String> namespace, String name)
+    {
+        var response = namespace
+                .map(ns -> dynamicApi.get(ns, name))
+                .orElseGet(() -> dynamicApi.get(name));
+
+        if (response.getHttpStatusCode() == 404) {
             return Optional.empty();
         }
 
-        if (namespaceDomain.isSingleValue()) {
-            var value = namespaceDomain.getSingleValue();
-            return switch (value) {
-                case Slice slice -> Optional.of(slice.toStringUtf8());
-                default -> throw new IllegalStateException("Unexpected type for namespace filter: " + value.getClass());
-            };
+        try {
+            return Optional.of(response.throwsApiException().getObject());
+        }
+        catch (ApiException e) {
+            throw new TrinoException(GENERIC_INTERNAL_ERROR, "Kubernetes API error: %d".formatted(e.getCode()), e);
+        }
+    }
+
+    private static List<DynamicKubernetesObject> filter(
+            List<DynamicKubernetesObject> objects,
+            Optional<Set<String>> names,
+            List<LabelRequirement> labelSelector,
+            List<FieldRequirement> fieldSelector,
+            OptionalInt limit)
+    {
+        if (names.isEmpty() && labelSelector.isEmpty() && fieldSelector.isEmpty() && limit.isEmpty()) {
+            return objects;
         }
 
-        return Optional.empty();
+        var matching = objects.stream();
+        if (names.isPresent()) {
+            matching = matching.filter(object -> names.get().contains(object.getMetadata().getName()));
+        }
+        if (!labelSelector.isEmpty()) {
+            matching = matching.filter(object -> LabelRequirement.matchesAll(labelSelector, object.getMetadata().getLabels()));
+        }
+        if (!fieldSelector.isEmpty()) {
+            matching = matching.filter(object -> FieldRequirement.matchesAll(fieldSelector, object.getRaw()));
+        }
+        if (limit.isPresent()) {
+            matching = matching.limit(limit.getAsInt());
+        }
+        return matching.toList();
+    }
+
+    private Iterator<List<ResourceRow>> list(
+            ResourceTable table,
+            Optional<String> namespace,
+            List<LabelRequirement> labelSelector,
+            List<FieldRequirement> fieldSelector,
+            OptionalInt limit,
+            List<ResourceTableColumn> columns)
+    {
+        var metadataOnly = columns.stream().allMatch(ResourceTableColumns::isMetadataColumn);
+        var paths = columns.stream()
+                .flatMap(column -> column.writer() instanceof ResourceTableColumn.JsonColumnWriter writer ? Stream.of(writer.path()) : Stream.empty())
+                .collect(toImmutableSet());
+        var decoder = new ResourceListDecoder(columns.contains(ResourceTableColumns.LABELS), columns.contains(ResourceTableColumns.ANNOTATIONS), paths);
+        var call = new ResourceListCall(this.apiClient, table.resource(), namespace, metadataOnly, decoder);
+
+        var labels = labelSelector.isEmpty() ? Optional.<String>empty() : Optional.of(LabelRequirement.toSelector(labelSelector));
+        var fields = fieldSelector.isEmpty() ? Optional.<String>empty() : Optional.of(FieldRequirement.toSelector(fieldSelector));
+
+        return new ResourceListPages(call, labels, fields, listPageSize, limit);
+    }
+
+    private static List<FieldRequirement> getFieldSelector(ResourceTableHandle handle)
+    {
+        var nameDomain = handle.constraint().getDomain(NAME.toColumnHandle(), NAME.type());
+        if (!nameDomain.isSingleValue()) {
+            return handle.fieldSelector();
+        }
+
+        var name = ((Slice) nameDomain.getSingleValue()).toStringUtf8();
+        return ImmutableList.<FieldRequirement>builder()
+                .add(FieldRequirement.equal(FieldSelectors.NAME_FIELD, name))
+                .addAll(handle.fieldSelector())
+                .build();
+    }
+
+    private static List<Optional<String>> getNamespaces(Domain namespaceDomain)
+    {
+        return namespaceDomain.getValues().getDiscreteSet().stream()
+                .map(value -> Optional.of(((Slice) value).toStringUtf8()))
+                .collect(toImmutableList());
+    }
+
+    private static Optional<Set<String>> getNames(ResourceTableHandle handle)
+    {
+        var nameDomain = handle.constraint().getDomain(NAME.toColumnHandle(), NAME.type());
+        if (nameDomain.isAll()) {
+            return Optional.empty();
+        }
+
+        return Optional.of(nameDomain.getValues().getDiscreteSet().stream()
+                .map(value -> ((Slice) value).toStringUtf8())
+                .collect(toImmutableSet()));
+    }
+
+    private static Optional<Domain> getNamespaceDomain(TupleDomain<ColumnHandle> constraint)
+    {
+        return Optional.of(constraint.getDomain(NAMESPACE.toColumnHandle(), NAMESPACE.type()))
+                .filter(domain -> !domain.isAll());
     }
 }
@@ -0,0 +1,224 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.ragnard.trino.k8s.client;
+
+import com.github.ragnard.trino.k8s.KubernetesConfig;
+import com.google.common.collect.ImmutableList;
+import com.google.inject.Inject;
+import io.kubernetes.client.common.KubernetesListObject;
+import io.kubernetes.client.common.KubernetesObject;
+import io.kubernetes.client.informer.SharedIndexInformer;
+import io.kubernetes.client.informer.SharedInformerFactory;
+import io.kubernetes.client.openapi.ApiClient;
+import io.kubernetes.client.openapi.models.V1CronJob;
+import io.kubernetes.client.openapi.models.V1CronJobList;
+import io.kubernetes.client.openapi.models.V1DaemonSet;
+import io.kubernetes.client.openapi.models.V1DaemonSetList;
+import io.kubernetes.client.openapi.models.V1Deployment;
+import io.kubernetes.client.openapi.models.V1DeploymentList;
+import io.kubernetes.client.openapi.models.V1Job;
+import io.kubernetes.client.openapi.models.V1JobList;
+import io.kubernetes.client.openapi.models.V1OwnerReference;
+import io.kubernetes.client.openapi.models.V1Pod;
+import io.kubernetes.client.openapi.models.V1PodList;
+import io.kubernetes.client.openapi.models.V1ReplicaSet;
+import io.kubernetes.client.openapi.models.V1ReplicaSetList;
+import io.kubernetes.client.openapi.models.V1StatefulSet;
+import io.kubernetes.client.openapi.models.V1StatefulSetList;
+import io.kubernetes.client.util.generic.GenericKubernetesApi;
+import jakarta.annotation.PreDestroy;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A watch-maintained index from owner UID to owned objects, used to
+ * resolve the pods of a workload for the logs table function without any
+ * API requests.
+ * <p>
+ * Pods, replica sets and jobs are indexed by the UIDs of their owner
+ * references, and workloads are looked up by namespace and name. The pods
+ * of a workload are found by following the index down through replica sets
+ * and jobs, which covers multi-level ownership such as
+ * Deployment&nbsp;&rarr;&nbsp;ReplicaSet&nbsp;&rarr;&nbsp;Pod and
+ * CronJob&nbsp;&rarr;&nbsp;Job&nbsp;&rarr;&nbsp;Pod.
+ * <p>
+ * Enabled with {@code kubernetes.logs.owner-index.enabled}. The informers
+ * are started on first use, and callers are expected to fall back to the
+ * API until they have synced.
+ */
+public class OwnerIndex
+{
+    private static final String OWNER_UID_INDEX = "ownerUid";
+
+    private final ApiClient apiClient;
+    private final boolean enabled;
+
+    private Informers informers;
+
+    @Inject
+    public OwnerIndex(ApiClient apiClient, KubernetesConfig config)
+    {
+        this.apiClient = requireNonNull(apiClient, "apiClient is null");
+        this.enabled = config.isOwnerIndexEnabled();
+    }
+
+    /**
+     * Returns the pods of the object of the given kind and name, as
+     * accepted by the {@code SELECTOR} argument of the logs table
+     * function, or empty if the index cannot currently answer, including
+     * when the object is not in the index.
+     */
+    public Optional<List<V1Pod>> getPods(String namespace, String kind, String name)
+    {
+        if (!enabled) {
+            return Optional.empty();
+        }
+
+        var informers = start();
+        if (!informers.hasSynced()) {
+            return Optional.empty();
+        }
+
+        // a miss may only mean the object was created after the last watch
+        // event, so it is left to the API lookup to decide it does not exist
+        var key = namespace + "/" + name;
+        if (kind.equals("pod")) {
+            return Optional.ofNullable(getByKey(informers.pods(), key)).map(List::of);
+        }
+
+        var owner = switch (kind) {
+            case "deployment" -> getByKey(informers.deployments(), key);
+            case "statefulset" -> getByKey(informers.statefulSets(), key);
+            case "daemonset" -> getByKey(informers.daemonSets(), key);
+            case "replicaset" -> getByKey(informers.replicaSets(), key);
+            case "job" -> getByKey(informers.jobs(), key);
+            case "cronjob" -> getByKey(informers.cronJobs(), key);
+            default -> null;
+        };
+        if (owner == null) {
+            return Optional.empty();
+        }
+
+        var pods = ImmutableList.<V1Pod>builder();
+        collectPods(informers, owner.getMetadata().getUid(), new HashSet<>(), pods);
+        return Optional.of(pods.build());
+    }
+
+    private static void collectPods(Informers informers, String ownerUid, Set<String> visited, ImmutableList.Builder<V1Pod> pods)
+    {
+        if (!visited.add(ownerUid)) {
+            return;
+        }
+
+        pods.addAll(informers.pods().getIndexer().byIndex(OWNER_UID_INDEX, ownerUid));
+        for (V1ReplicaSet replicaSet : informers.replicaSets().getIndexer().byIndex(OWNER_UID_INDEX, ownerUid)) {
+            collectPods(informers, replicaSet.getMetadata().getUid(), visited, pods);
+        }
+        for (V1Job job : informers.jobs().getIndexer().byIndex(OWNER_UID_INDEX, ownerUid)) {
+            collectPods(informers, job.getMetadata().getUid(), visited, pods);
+        }
+    }
+
+    private static <T extends KubernetesObject> T getByKey(SharedIndexInformer<T> informer, String key)
+    {
+        return informer.getIndexer().getByKey(key);
+    }
+
+    private synchronized Informers start()
+    {
+        if (informers == null) {
+            informers = Informers.start(apiClient);
+        }
+        return informers;
+    }
+
+    @PreDestroy
+    public synchronized void stop()
+    {
+        if (informers != null) {
+            informers.factory().stopAllRegisteredInformers();
+            informers = null;
+        }
+    }
+
+    private record Informers(
+            SharedInformerFactory factory,
+            SharedIndexInformer<V1Pod> pods,
+            SharedIndexInformer<V1ReplicaSet> replicaSets,
+            SharedIndexInformer<V1Job> jobs,
+            SharedIndexInformer<V1Deployment> deployments,
+            SharedIndexInformer<V1StatefulSet> statefulSets,
+            SharedIndexInformer<V1DaemonSet> daemonSets,
+            SharedIndexInformer<V1CronJob> cronJobs)
+    {
+        static Informers start(ApiClient apiClient)
+        {
+            var factory = new SharedInformerFactory(apiClient);
+
+            var informers = new Informers(
+                    factory,
+                    owned(informer(factory, apiClient, V1Pod.class, V1PodList.class, "", "pods")),
+                    owned(informer(factory, apiClient, V1ReplicaSet.class, V1ReplicaSetList.class, "apps", "replicasets")),
+                    owned(informer(factory, apiClient, V1Job.class, V1JobList.class, "batch", "jobs")),
+                    informer(factory, apiClient, V1Deployment.class, V1DeploymentList.class, "apps", "deployments"),
+                    informer(factory, apiClient, V1StatefulSet.class, V1StatefulSetList.class, "apps", "statefulsets"),
+                    informer(factory, apiClient, V1DaemonSet.class, V1DaemonSetList.class, "apps", "daemonsets"),
+                    informer(factory, apiClient, V1CronJob.class, V1CronJobList.class, "batch", "cronjobs"));
+
+            factory.startAllRegisteredInformers();
+
+            return informers;
+        }
+
+        boolean hasSynced()
+        {
+            return pods.hasSynced()
+                    && replicaSets.hasSynced()
+                    && jobs.hasSynced()
+                    && deployments.hasSynced()
+                    && statefulSets.hasSynced()
+                    && daemonSets.hasSynced()
+                    && cronJobs.hasSynced();
+        }
+
+        private static <T extends KubernetesObject, L extends KubernetesListObject> SharedIndexInformer<T> informer(
+                SharedInformerFactory factory,
+                ApiClient apiClient,
+                Class<T> objectClass,
+                Class<L> listClass,
+                String group,
+                String plural)
+        {
+            var api = new GenericKubernetesApi<>(objectClass, listClass, group, "v1", plural, apiClient);
+            return factory.sharedIndexInformerFor(api, objectClass, 0);
+        }
+
+        private static <T extends KubernetesObject> SharedIndexInformer<T> owned(SharedIndexInformer<T> informer)
+        {
+            informer.addIndexers(Map.of(OWNER_UID_INDEX, object -> Optional.ofNullable(object.getMetadata().getOwnerReferences())
+                    .orElse(List.of())
+                    .stream()
+                    .map(V1OwnerReference::getUid)
+                    .collect(toImmutableList())));
+            return informer;
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.ragnard.trino.k8s.client;
+
+import io.airlift.units.Duration;
+import okhttp3.HttpUrl;
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.BufferedSource;
+import okio.ForwardingSource;
+import okio.Okio;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Bounds the number of concurrent requests to each host. OkHttp only
+ * applies {@code maxRequestsPerHost} to asynchronous calls, while the
+ * Kubernetes client executes calls synchronously.
+ * <p>
+ * A request holds its permit until its response body is closed. Watches
+ * and followed logs stay open for as long as they run, so they are not
+ * limited, as they would otherwise starve short requests of permits. A
+ * request that cannot get a permit within the wait timeout fails with an
+ * {@link InterruptedIOException}, like any other request that times out.
+ */
+public class RequestLimiter
+        implements Interceptor
+{
+    private final int maxRequestsPerHost;
+    private final long waitTimeoutNanos;
+    private final ConcurrentMap<String, Semaphore> hosts = new ConcurrentHashMap<>();
+
+    public RequestLimiter(int maxRequestsPerHost, Duration waitTimeout)
+    {
+        this.maxRequestsPerHost = maxRequestsPerHost;
+        this.waitTimeoutNanos = waitTimeout.roundTo(NANOSECONDS);
+    }
+
+    @Override
+    public Response intercept(Chain chain)
+            throws IOException
+    {
+        var url = chain.request().url();
+        if (isLongLived(url)) {
+            return chain.proceed(chain.request());
+        }
+
+        var permits = hosts.computeIfAbsent(url.host(), _ -> new Semaphore(maxRequestsPerHost));
+        try {
+            if (!permits.tryAcquire(waitTimeoutNanos, NANOSECONDS)) {
+                throw new InterruptedIOException("Timed out waiting for one of %s concurrent requests to %s".formatted(maxRequestsPerHost, url.host()));
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted waiting for a request permit");
+        }
+
+        Response response;
+        try {
+            response = chain.proceed(chain.request());
+        }
+        catch (IOException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+
+        var body = response.body();
+        if (body == null) {
+            permits.release();
+            return response;
+        }
+        return response.newBuilder()
+                .body(new ReleasingResponseBody(body, permits))
+                .build();
+    }
+
+    private static boolean isLongLived(HttpUrl url)
+    {
+        return "true".equals(url.queryParameter("watch")) || "true".equals(url.queryParameter("follow"));
+    }
+
+    private static class ReleasingResponseBody
+            extends ResponseBody
+    {
+        private final ResponseBody delegate;
+        private final Semaphore permits;
+        private final AtomicBoolean released = new AtomicBoolean();
+        private final BufferedSource source;
+
+        ReleasingResponseBody(ResponseBody delegate, Semaphore permits)
+        {
+            this.delegate = delegate;
+            this.permits = permits;
+            this.source = Okio.buffer(new ForwardingSource(delegate.source())
+            {
+                @Override
+                public void close()
+                        throws IOException
+                {
+                    try {
+                        super.close();
+                    }
+                    finally {
+                        release();
+                    }
+                }
+            });
+        }
+
+        @Override
+        public MediaType contentType()
+        {
+            return delegate.contentType();
+        }
+
+        @Override
+        public long contentLength()
+        {
+            return delegate.contentLength();
+        }
+
+        @Override
+        public BufferedSource source()
+        {
+            return source;
+        }
+
+        @Override
+        public void close()
+        {
+            try {
+                source.close();
+            }
+            catch (IOException _) {
+                // closing the underlying body does not fail in practice
+            }
+            finally {
+                release();
+            }
+        }
+
+        private void release()
+        {
+            if (released.compareAndSet(false, true)) {
+                permits.release();
+            }
+        }
+    }
+}
@@ -0,0 +1,222 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.ragnard.trino.k8s.client;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.github.ragnard.trino.k8s.KubernetesConfig;
+import com.github.ragnard.trino.k8s.resources.ResourceDescriptor;
+import com.github.ragnard.trino.k8s.resources.ResourceTable;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.google.inject.Inject;
+import io.airlift.log.Logger;
+import io.kubernetes.client.Discovery;
+import io.kubernetes.client.openapi.ApiClient;
+import io.kubernetes.client.openapi.ApiException;
+import io.trino.spi.TrinoException;
+import io.trino.spi.connector.SchemaTableName;
+import jakarta.annotation.PreDestroy;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static io.trino.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Discovers the API resources served by the cluster, which become the
+ * tables of the resources schema.
+ * <p>
+ * Discovery is started on first use rather than when the connector is
+ * created, and runs on a background thread. Once tables are known they are
+ * served from memory, and a refresh is started in the background when they
+ * are older than {@code kubernetes.discovery.refresh-interval}; callers keep
+ * seeing the previous tables until it completes. Only the very first
+ * discovery blocks, and with {@code kubernetes.discovery.snapshot-file} not
+ * even that: the last result is read back from the file and used until a
+ * fresh discovery replaces it.
+ * <p>
+ * With {@code kubernetes.discovery.typed-columns.enabled}, discovery also
+ * derives the typed fields of each resource from its OpenAPI schema, see
+ * {@link ResourceSchemas}.
+ */
+public class ResourceDiscovery
+{
+    private static final Logger log = Logger.get(ResourceDiscovery.class);
+
+    // like the mapper of the engine, serializes only @JsonProperty members, and not getters such as getRetainedSizeInBytes
+    private static final ObjectMapper MAPPER = JsonMapper.builder()
+            .disable(MapperFeature.AUTO_DETECT_GETTERS, MapperFeature.AUTO_DETECT_IS_GETTERS)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .build();
+    private static final TypeReference<List<ResourceDescriptor>> DESCRIPTORS = new TypeReference<>() {};
+
+    private final ApiClient apiClient;
+    private final long refreshIntervalNanos;
+    private final Optional<Path> snapshotFile;
+    private final Optional<ResourceSchemas> schemas;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("kubernetes-discovery-%s")
+            .setDaemon(true)
+            .build());
+
+    private volatile Snapshot snapshot;
+    private CompletableFuture<Snapshot> refresh;
+
+    @Inject
+    public ResourceDiscovery(ApiClient apiClient, KubernetesConfig config)
+    {
+        this.apiClient = requireNonNull(apiClient, "apiClient is null");
+        this.refreshIntervalNanos = config.getDiscoveryRefreshInterval().roundTo(NANOSECONDS);
+        this.snapshotFile = config.getDiscoverySnapshotFile().map(Path::of);
+        this.schemas = config.isTypedColumnsEnabled() ? Optional.of(new ResourceSchemas(apiClient)) : Optional.empty();
+        this.snapshot = this.snapshotFile.flatMap(ResourceDiscovery::readSnapshot).orElse(null);
+    }
+
+    public ImmutableMap<SchemaTableName, ResourceTable> getTables()
+    {
+        var current = this.snapshot;
+        if (current == null) {
+            return await(refresh()).tables();
+        }
+        if (current.isExpired()) {
+            refresh();
+        }
+        return current.tables();
+    }
+
+    public Optional<ResourceTable> getTable(SchemaTableName schemaTableName)
+    {
+        var table = getTables().get(schemaTableName);
+        if (table == null && this.snapshot.fromFile()) {
+            // the snapshot may predate the resource, so only a fresh discovery can tell that it does not exist
+            table = await(refresh()).tables().get(schemaTableName);
+        }
+        return Optional.ofNullable(table);
+    }
+
+    @PreDestroy
+    public void stop()
+    {
+        this.executor.shutdownNow();
+    }
+
+    private synchronized CompletableFuture<Snapshot> refresh()
+    {
+        if (this.refresh == null || this.refresh.isDone()) {
+            this.refresh = CompletableFuture.supplyAsync(this::discover, this.executor);
+            this.refresh.exceptionally(e -> {
+                log.warn(e, "Discovery of Kubernetes API resources failed");
+                return null;
+            });
+        }
+        return this.refresh;
+    }
+
+    private Snapshot discover()
+    {
+        List<ResourceDescriptor> discoveredResources;
+        try {
+            discoveredResources = new Discovery(this.apiClient).findAll().stream()
+                    .map(ResourceDescriptor::from)
+                    .collect(toImmutableList());
+        }
+        catch (ApiException e) {
+            throw new TrinoException(GENERIC_INTERNAL_ERROR, "Kubernetes API error: %d".formatted(e.getCode()), e);
+        }
+        var resources = this.schemas
+                .map(schemas -> schemas.withFields(discoveredResources))
+                .orElse(discoveredResources);
+
+        var discovered = Snapshot.create(resources, System.nanoTime() + this.refreshIntervalNanos, false);
+        this.snapshot = discovered;
+        this.snapshotFile.ifPresent(file -> writeSnapshot(file, resources));
+        return discovered;
+    }
+
+    private static Snapshot await(CompletableFuture<Snapshot> future)
+    {
+        try {
+            return future.join();
+        }
+        catch (CompletionException e) {
+            if (e.getCause() instanceof TrinoException trinoException) {
+                throw trinoException;
+            }
+            throw new TrinoException(GENERIC_INTERNAL_ERROR, "Discovery of Kubernetes API resources failed", e.getCause());
+        }
+    }
+
+    private static Optional<Snapshot> readSnapshot(Path file)
+    {
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+        try {
+            List<ResourceDescriptor> resources = MAPPER.readValue(file.toFile(), DESCRIPTORS);
+            // expired from the start, so the first use triggers a refresh
+            return Optional.of(Snapshot.create(resources, System.nanoTime(), true));
+        }
+        catch (IOException | RuntimeException e) {
+            log.warn(e, "Ignoring unreadable discovery snapshot %s", file);
+            return Optional.empty();
+        }
+    }
+
+    private static void writeSnapshot(Path file, List<ResourceDescriptor> resources)
+    {
+        try {
+            var parent = file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            var temporary = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+            MAPPER.writeValue(temporary.toFile(), resources);
+            Files.move(temporary, file, REPLACE_EXISTING, ATOMIC_MOVE);
+        }
+        catch (IOException e) {
+            log.warn(e, "Failed to write discovery snapshot %s", file);
+        }
+    }
+
+    private record Snapshot(ImmutableMap<SchemaTableName, ResourceTable> tables, long expiresAt, boolean fromFile)
+    {
+        static Snapshot create(List<ResourceDescriptor> resources, long expiresAt, boolean fromFile)
+        {
+            var tables = resources.stream()
+                    .map(ResourceTable::from)
+                    .collect(toImmutableMap(ResourceTable::schemaTableName, table -> table));
+            return new Snapshot(tables, expiresAt, fromFile);
+        }
+
+        boolean isExpired()
+        {
+            return System.nanoTime() - expiresAt >= 0;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.ragnard.trino.k8s.client;
+
+import com.github.ragnard.trino.k8s.resources.ResourceRow;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A page of a LIST response.
+ */
+public record ResourceList(List<ResourceRow> items, Optional<String> continueToken, OptionalLong remainingItemCount)
+{
+    public ResourceList
+    {
+        items = ImmutableList.copyOf(items);
+        requireNonNull(continueToken, "continueToken is null");
+        requireNonNull(remainingItemCount, "remainingItemCount is null");
+    }
+}
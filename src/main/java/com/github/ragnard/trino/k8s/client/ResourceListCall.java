@@ -0,0 +1,116 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.ragnard.trino.k8s.client;
+
+import com.github.ragnard.trino.k8s.resources.ResourceDescriptor;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.kubernetes.client.openapi.ApiClient;
+import io.kubernetes.client.openapi.ApiException;
+import io.kubernetes.client.openapi.Pair;
+import io.kubernetes.client.util.generic.options.ListOptions;
+
+import java.io.IOException;
+import java.util.Optional;
+
+import static com.google.common.base.Strings.isNullOrEmpty;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Lists resources, decoding each response with a {@link ResourceListDecoder}
+ * straight from its bytes.
+ * <p>
+ * With {@code metadataOnly} the objects are listed as
+ * {@code PartialObjectMetadataList}, for which the API server returns only
+ * the metadata of each object. Used when no projected column needs
+ * anything but metadata, which for resources such as configmaps and
+ * secrets is a fraction of the full object. Servers that do not support
+ * the conversion fall back to returning full objects, which are handled
+ * the same way.
+ */
+public class ResourceListCall
+        implements ResourceListPages.ListCall
+{
+    private static final String ACCEPT_METADATA = "application/json;as=PartialObjectMetadataList;g=meta.k8s.io;v=v1,application/json";
+    private static final String ACCEPT_OBJECTS = "application/json";
+
+    private final ApiClient apiClient;
+    private final String path;
+    private final String accept;
+    private final ResourceListDecoder decoder;
+
+    public ResourceListCall(ApiClient apiClient, ResourceDescriptor resource, Optional<String> namespace, boolean metadataOnly, ResourceListDecoder decoder)
+    {
+        this.apiClient = requireNonNull(apiClient, "apiClient is null");
+        this.path = path(apiClient, resource, namespace);
+        this.accept = metadataOnly ? ACCEPT_METADATA : ACCEPT_OBJECTS;
+        this.decoder = requireNonNull(decoder, "decoder is null");
+    }
+
+    @Override
+    public ResourceList list(ListOptions options)
+            throws ApiException
+    {
+        var queryParams = ImmutableList.<Pair>builder();
+        if (options.getLimit() != null) {
+            queryParams.add(new Pair("limit", String.valueOf(options.getLimit())));
+        }
+        if (!isNullOrEmpty(options.getContinue())) {
+            queryParams.add(new Pair("continue", options.getContinue()));
+        }
+        if (!isNullOrEmpty(options.getLabelSelector())) {
+            queryParams.add(new Pair("labelSelector", options.getLabelSelector()));
+        }
+        if (!isNullOrEmpty(options.getFieldSelector())) {
+            queryParams.add(new Pair("fieldSelector", options.getFieldSelector()));
+        }
+
+        var call = apiClient.buildCall(
+                path,
+                "GET",
+                queryParams.build(),
+                ImmutableList.of(),
+                null,
+                ImmutableMap.of("Accept", accept),
+                ImmutableMap.of(),
+                ImmutableMap.of(),
+                new String[] {"BearerToken"},
+                null);
+
+        try (var response = call.execute()) {
+            var body = response.body();
+            if (!response.isSuccessful() || body == null) {
+                throw new ApiException(response.code(), response.message());
+            }
+            return decoder.decode(body.bytes());
+        }
+        catch (IOException e) {
+            throw new ApiException(e);
+        }
+    }
+
+    private static String path(ApiClient apiClient, ResourceDescriptor resource, Optional<String> namespace)
+    {
+        var path = new StringBuilder();
+        if (isNullOrEmpty(resource.group())) {
+            path.append("/api/").append(resource.version());
+        }
+        else {
+            path.append("/apis/").append(resource.group()).append('/').append(resource.version());
+        }
+        namespace.ifPresent(ns -> path.append("/namespaces/").append(apiClient.escapeString(ns)));
+        path.append('/').append(resource.resourcePlural());
+        return path.toString();
+    }
+}
@@ -0,0 +1,315 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.ragnard.trino.k8s.client;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.github.ragnard.trino.k8s.resources.JsonResourceRow;
+import com.github.ragnard.trino.k8s.resources.ResourceRow;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import io.kubernetes.client.openapi.models.V1ObjectMeta;
+
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+
+import static com.fasterxml.jackson.core.JsonToken.END_ARRAY;
+import static com.fasterxml.jackson.core.JsonToken.FIELD_NAME;
+import static com.fasterxml.jackson.core.JsonToken.START_ARRAY;
+import static com.fasterxml.jackson.core.JsonToken.START_OBJECT;
+import static com.fasterxml.jackson.core.JsonToken.VALUE_NULL;
+import static java.lang.Math.toIntExact;
+
+/**
+ * Decodes a LIST response in a single pass over its tokens, without
+ * building a tree. Of each item only the metadata is decoded, and of that
+ * only the fields that have a column; everything else, such as the spec
+ * and status, is skipped over and kept as a byte range of the response.
+ * So are the values at the paths that a column is read from, such as a
+ * top-level member with a typed column, which are only parsed when that
+ * column is written.
+ */
+public class ResourceListDecoder
+{
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final boolean decodeLabels;
+    private final boolean decodeAnnotations;
+    private final PathNode paths;
+
+    /**
+     * @param decodeLabels whether the labels of each object are needed
+     * @param decodeAnnotations whether the annotations of each object are needed
+     * @param paths the paths of the values of each object that are needed, see {@link ResourceRow#valueJson}
+     */
+    public ResourceListDecoder(boolean decodeLabels, boolean decodeAnnotations, Set<List<String>> paths)
+    {
+        this.decodeLabels = decodeLabels;
+        this.decodeAnnotations = decodeAnnotations;
+        this.paths = PathNode.of(paths);
+    }
+
+    public ResourceList decode(byte[] body)
+            throws IOException
+    {
+        var json = Slices.wrappedBuffer(body);
+        var items = ImmutableList.<ResourceRow>builder();
+        Optional<String> continueToken = Optional.empty();
+        OptionalLong remainingItemCount = OptionalLong.empty();
+
+        try (var parser = JSON_FACTORY.createParser(body)) {
+            expect(parser, parser.nextToken(), START_OBJECT);
+            while (parser.nextToken() == FIELD_NAME) {
+                var field = parser.currentName();
+                var token = parser.nextToken();
+                if (field.equals("items") && token == START_ARRAY) {
+                    while (parser.nextToken() == START_OBJECT) {
+                        items.add(decodeItem(parser, json));
+                    }
+                }
+                else if (field.equals("metadata") && token == START_OBJECT) {
+                    while (parser.nextToken() == FIELD_NAME) {
+                        var metadataField = parser.currentName();
+                        var value = parser.nextToken();
+                        if (metadataField.equals("continue") && value == JsonToken.VALUE_STRING && !parser.getText().isEmpty()) {
+                            continueToken = Optional.of(parser.getText());
+                        }
+                        else if (metadataField.equals("remainingItemCount") && value == JsonToken.VALUE_NUMBER_INT) {
+                            remainingItemCount = OptionalLong.of(parser.getLongValue());
+                        }
+                        else {
+                            parser.skipChildren();
+                        }
+                    }
+                }
+                else {
+                    parser.skipChildren();
+                }
+            }
+        }
+
+        return new ResourceList(items.build(), continueToken, remainingItemCount);
+    }
+
+    private ResourceRow decodeItem(JsonParser parser, Slice json)
+            throws IOException
+    {
+        int start = offset(parser);
+        int metadataMemberStart = -1;
+        int metadataStart = -1;
+        int metadataEnd = -1;
+        V1ObjectMeta metadata = null;
+        var values = ImmutableMap.<List<String>, Slice>builder();
+
+        while (parser.nextToken() == FIELD_NAME) {
+            var name = parser.currentName();
+            var node = paths.children().get(name);
+            if (name.equals("metadata")) {
+                int memberStart = offset(parser);
+                if (parser.nextToken() == START_OBJECT) {
+                    metadataMemberStart = memberStart;
+                    metadataStart = offset(parser);
+                    metadata = decodeMetadata(parser);
+                    metadataEnd = offset(parser) + 1;
+                    if (node != null) {
+                        // the metadata is decoded field by field above, so its paths are captured in a pass of their own
+                        var metadataJson = json.slice(metadataStart, metadataEnd - metadataStart);
+                        try (var metadataParser = JSON_FACTORY.createParser(metadataJson.byteArray(), metadataJson.byteArrayOffset(), metadataJson.length())) {
+                            metadataParser.nextToken();
+                            capture(metadataParser, metadataJson, node, values);
+                        }
+                    }
+                }
+                else {
+                    parser.skipChildren();
+                }
+            }
+            else if (node != null) {
+                parser.nextToken();
+                capture(parser, json, node, values);
+            }
+            else {
+                parser.nextToken();
+                parser.skipChildren();
+            }
+        }
+
+        int end = offset(parser) + 1;
+        return new JsonResourceRow(json, start, end - start, metadataMemberStart, metadataStart, metadataEnd, metadata, values.buildKeepingLast());
+    }
+
+    /**
+     * Captures the values of a node and its children, with the parser at
+     * the first token of the value of the node. Returns with the parser at
+     * the last token of that value.
+     */
+    private static void capture(JsonParser parser, Slice json, PathNode node, ImmutableMap.Builder<List<String>, Slice> values)
+            throws IOException
+    {
+        int start = offset(parser);
+        var token = parser.currentToken();
+        if (node.children().isEmpty()) {
+            parser.skipChildren();
+        }
+        else if (token == START_OBJECT) {
+            while (parser.nextToken() == FIELD_NAME) {
+                var child = node.children().get(parser.currentName());
+                parser.nextToken();
+                if (child == null) {
+                    parser.skipChildren();
+                }
+                else {
+                    capture(parser, json, child, values);
+                }
+            }
+        }
+        else if (token == START_ARRAY) {
+            int index = 0;
+            while (parser.nextToken() != END_ARRAY) {
+                var child = node.children().get(String.valueOf(index++));
+                if (child == null) {
+                    parser.skipChildren();
+                }
+                else {
+                    capture(parser, json, child, values);
+                }
+            }
+        }
+
+        if (node.captured()) {
+            int end;
+            if (parser.currentToken().isStructEnd()) {
+                end = offset(parser) + 1;
+            }
+            else {
+                parser.finishToken();
+                end = toIntExact(parser.currentLocation().getByteOffset());
+            }
+            values.put(node.path(), json.slice(start, end - start));
+        }
+    }
+
+    private V1ObjectMeta decodeMetadata(JsonParser parser)
+            throws IOException
+    {
+        var metadata = new V1ObjectMeta();
+        while (parser.nextToken() == FIELD_NAME) {
+            var field = parser.currentName();
+            if (parser.nextToken() == VALUE_NULL) {
+                continue;
+            }
+            switch (field) {
+                case "name" -> metadata.setName(parser.getText());
+                case "namespace" -> metadata.setNamespace(parser.getText());
+                case "uid" -> metadata.setUid(parser.getText());
+                case "resourceVersion" -> metadata.setResourceVersion(parser.getText());
+                case "selfLink" -> metadata.setSelfLink(parser.getText());
+                case "clusterName" -> metadata.setClusterName(parser.getText());
+                case "creationTimestamp" -> metadata.setCreationTimestamp(OffsetDateTime.parse(parser.getText()));
+                case "deletionTimestamp" -> metadata.setDeletionTimestamp(OffsetDateTime.parse(parser.getText()));
+                case "deletionGracePeriodSeconds" -> metadata.setDeletionGracePeriodSeconds(parser.getLongValue());
+                case "finalizers" -> metadata.setFinalizers(decodeStringList(parser));
+                case "labels" -> {
+                    if (decodeLabels) {
+                        metadata.setLabels(decodeStringMap(parser));
+                    }
+                    else {
+                        parser.skipChildren();
+                    }
+                }
+                case "annotations" -> {
+                    if (decodeAnnotations) {
+                        metadata.setAnnotations(decodeStringMap(parser));
+                    }
+                    else {
+                        parser.skipChildren();
+                    }
+                }
+                default -> parser.skipChildren();
+            }
+        }
+        return metadata;
+    }
+
+    private static List<String> decodeStringList(JsonParser parser)
+            throws IOException
+    {
+        expect(parser, parser.currentToken(), START_ARRAY);
+        var values = ImmutableList.<String>builder();
+        while (parser.nextToken() != JsonToken.END_ARRAY) {
+            values.add(parser.getText());
+        }
+        return values.build();
+    }
+
+    private static Map<String, String> decodeStringMap(JsonParser parser)
+            throws IOException
+    {
+        expect(parser, parser.currentToken(), START_OBJECT);
+        var values = ImmutableMap.<String, String>builder();
+        while (parser.nextToken() == FIELD_NAME) {
+            var key = parser.currentName();
+            parser.nextToken();
+            values.put(key, parser.getText());
+        }
+        return values.buildKeepingLast();
+    }
+
+    /**
+     * A trie of the paths to capture. Array elements are addressed by their
+     * index, as a string.
+     */
+    private record PathNode(List<String> path, boolean captured, Map<String, PathNode> children)
+    {
+        static PathNode of(Set<List<String>> paths)
+        {
+            return of(List.of(), paths);
+        }
+
+        private static PathNode of(List<String> path, Set<List<String>> paths)
+        {
+            var children = ImmutableMap.<String, PathNode>builder();
+            paths.stream()
+                    .filter(candidate -> candidate.size() > path.size() && candidate.subList(0, path.size()).equals(path))
+                    .map(candidate -> candidate.get(path.size()))
+                    .distinct()
+                    .forEach(name -> {
+                        var childPath = ImmutableList.<String>builder().addAll(path).add(name).build();
+                        children.put(name, of(childPath, paths));
+                    });
+            return new PathNode(path, paths.contains(path), children.buildOrThrow());
+        }
+    }
+
+    private static int offset(JsonParser parser)
+    {
+        return toIntExact(parser.currentTokenLocation().getByteOffset());
+    }
+
+    private static void expect(JsonParser parser, JsonToken actual, JsonToken expected)
+            throws IOException
+    {
+        if (actual != expected) {
+            throw new IOException("Expected %s but found %s at %s".formatted(expected, actual, parser.currentTokenLocation()));
+        }
+    }
+}
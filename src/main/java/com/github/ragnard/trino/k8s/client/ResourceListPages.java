@@ -0,0 +1,95 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.ragnard.trino.k8s.client;
+
+import com.github.ragnard.trino.k8s.resources.ResourceRow;
+import com.google.common.collect.AbstractIterator;
+import io.kubernetes.client.openapi.ApiException;
+import io.kubernetes.client.util.generic.options.ListOptions;
+import io.trino.spi.TrinoException;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+
+import static io.trino.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Lists resources one API page at a time, following {@code continue}
+ * tokens, so that at most one page of objects is held in memory.
+ */
+public class ResourceListPages
+        extends AbstractIterator<List<ResourceRow>>
+{
+    private final ListCall call;
+    private final Optional<String> labelSelector;
+    private final Optional<String> fieldSelector;
+    private final int pageSize;
+
+    private OptionalInt remaining;
+    private String continueToken;
+    private boolean done;
+
+    public ResourceListPages(ListCall call, Optional<String> labelSelector, Optional<String> fieldSelector, int pageSize, OptionalInt limit)
+    {
+        this.call = requireNonNull(call, "call is null");
+        this.labelSelector = requireNonNull(labelSelector, "labelSelector is null");
+        this.fieldSelector = requireNonNull(fieldSelector, "fieldSelector is null");
+        this.pageSize = pageSize;
+        this.remaining = requireNonNull(limit, "limit is null");
+    }
+
+    @Override
+    protected List<ResourceRow> computeNext()
+    {
+        if (done || (remaining.isPresent() && remaining.getAsInt() <= 0)) {
+            return endOfData();
+        }
+
+        var options = new ListOptions();
+        options.setLimit(remaining.isPresent() ? Math.min(pageSize, remaining.getAsInt()) : pageSize);
+        options.setContinue(continueToken);
+        labelSelector.ifPresent(options::setLabelSelector);
+        fieldSelector.ifPresent(options::setFieldSelector);
+
+        ResourceList list;
+        try {
+            list = call.list(options);
+        }
+        catch (ApiException e) {
+            throw new TrinoException(GENERIC_INTERNAL_ERROR, "Kubernetes API error: %d".formatted(e.getCode()), e);
+        }
+
+        var items = list.items();
+
+        continueToken = list.continueToken().orElse(null);
+        done = continueToken == null;
+        if (remaining.isPresent()) {
+            remaining = OptionalInt.of(remaining.getAsInt() - items.size());
+        }
+
+        return items;
+    }
+
+    /**
+     * Issues a single LIST request for a page.
+     */
+    @FunctionalInterface
+    public interface ListCall
+    {
+        ResourceList list(ListOptions options)
+                throws ApiException;
+    }
+}
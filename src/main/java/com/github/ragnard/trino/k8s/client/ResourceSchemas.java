@@ -0,0 +1,251 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.ragnard.trino.k8s.client;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.ragnard.trino.k8s.resources.FieldType;
+import com.github.ragnard.trino.k8s.resources.ResourceDescriptor;
+import com.github.ragnard.trino.k8s.resources.ResourceField;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.log.Logger;
+import io.kubernetes.client.openapi.ApiClient;
+import io.kubernetes.client.openapi.ApiException;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.google.common.base.Strings.isNullOrEmpty;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.groupingBy;
+
+/**
+ * Derives the typed fields of resources from the OpenAPI v3 schemas
+ * published by the API server, one document per group version.
+ * <p>
+ * Every top-level member of an object but its {@code apiVersion},
+ * {@code kind} and {@code metadata} becomes a field. Objects with
+ * properties become rows, objects with additional properties become maps,
+ * and anything without a precise type, such as int-or-string values, is
+ * kept as JSON text. So are rows nested deeper than {@link #MAX_ROW_DEPTH},
+ * and recursive schemas.
+ * <p>
+ * The URL of each document changes with its content, so the fields derived
+ * from it are reused until the server publishes a new version.
+ */
+public class ResourceSchemas
+{
+    private static final Logger log = Logger.get(ResourceSchemas.class);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+    private static final String REFERENCE_PREFIX = "#/components/schemas/";
+    private static final Set<String> SKIPPED_MEMBERS = ImmutableSet.of("apiVersion", "kind", "metadata");
+    private static final int MAX_ROW_DEPTH = 4;
+
+    private final ApiClient apiClient;
+
+    // fields of the kinds of each document, by document URL
+    private Map<String, Map<String, List<ResourceField>>> documents = Map.of();
+
+    public ResourceSchemas(ApiClient apiClient)
+    {
+        this.apiClient = requireNonNull(apiClient, "apiClient is null");
+    }
+
+    /**
+     * Returns the resources with their fields. Resources whose schema is
+     * not published, or cannot be fetched, are returned as they are.
+     */
+    public synchronized List<ResourceDescriptor> withFields(List<ResourceDescriptor> resources)
+    {
+        JsonNode paths;
+        try {
+            paths = get("/openapi/v3").path("paths");
+        }
+        catch (ApiException e) {
+            log.warn(e, "Failed to fetch the OpenAPI v3 index, resource tables will not have typed columns");
+            return resources;
+        }
+
+        var fetched = new HashMap<String, Map<String, List<ResourceField>>>();
+        var fieldsByResource = new HashMap<ResourceDescriptor, List<ResourceField>>();
+        var byGroupVersion = resources.stream().collect(groupingBy(ResourceSchemas::groupVersionPath));
+        for (Map.Entry<String, List<ResourceDescriptor>> entry : byGroupVersion.entrySet()) {
+            var url = paths.path(entry.getKey()).path("serverRelativeURL").asText("");
+            if (url.isEmpty()) {
+                continue;
+            }
+
+            var fields = documents.get(url);
+            if (fields == null) {
+                try {
+                    fields = fields(get(url), entry.getValue());
+                }
+                catch (ApiException e) {
+                    log.warn(e, "Failed to fetch the OpenAPI v3 schemas of %s", entry.getKey());
+                    continue;
+                }
+            }
+            fetched.put(url, fields);
+            for (ResourceDescriptor resource : entry.getValue()) {
+                fieldsByResource.put(resource, fields.getOrDefault(resource.kind(), List.of()));
+            }
+        }
+        this.documents = ImmutableMap.copyOf(fetched);
+
+        return resources.stream()
+                .map(resource -> resource.withFields(fieldsByResource.getOrDefault(resource, List.of())))
+                .collect(toImmutableList());
+    }
+
+    private JsonNode get(String path)
+            throws ApiException
+    {
+        var call = apiClient.buildCall(
+                path,
+                "GET",
+                ImmutableList.of(),
+                ImmutableList.of(),
+                null,
+                ImmutableMap.of("Accept", "application/json"),
+                ImmutableMap.of(),
+                ImmutableMap.of(),
+                new String[] {"BearerToken"},
+                null);
+
+        try (var response = call.execute()) {
+            var body = response.body();
+            if (!response.isSuccessful() || body == null) {
+                throw new ApiException(response.code(), response.message());
+            }
+            return MAPPER.readTree(body.byteStream());
+        }
+        catch (IOException e) {
+            throw new ApiException(e);
+        }
+    }
+
+    private static String groupVersionPath(ResourceDescriptor resource)
+    {
+        if (isNullOrEmpty(resource.group())) {
+            return "api/" + resource.version();
+        }
+        return "apis/" + resource.group() + "/" + resource.version();
+    }
+
+    /**
+     * Returns the fields of the kinds of the resources that are described
+     * in a document, by kind.
+     */
+    private static Map<String, List<ResourceField>> fields(JsonNode document, List<ResourceDescriptor> resources)
+    {
+        var schemas = document.path("components").path("schemas");
+        var kinds = resources.stream()
+                .map(ResourceDescriptor::kind)
+                .collect(ImmutableSet.toImmutableSet());
+        var group = resources.getFirst().group();
+        var version = resources.getFirst().version();
+
+        var fields = new HashMap<String, List<ResourceField>>();
+        for (Map.Entry<String, JsonNode> entry : schemas.properties()) {
+            for (JsonNode groupVersionKind : entry.getValue().path("x-kubernetes-group-version-kind")) {
+                var kind = groupVersionKind.path("kind").asText();
+                if (kinds.contains(kind)
+                        && groupVersionKind.path("group").asText("").equals(group)
+                        && groupVersionKind.path("version").asText().equals(version)) {
+                    fields.putIfAbsent(kind, members(entry.getValue(), schemas, ImmutableSet.of(REFERENCE_PREFIX + entry.getKey())));
+                }
+            }
+        }
+        return ImmutableMap.copyOf(fields);
+    }
+
+    private static List<ResourceField> members(JsonNode schema, JsonNode schemas, Set<String> references)
+    {
+        var members = ImmutableList.<ResourceField>builder();
+        for (Map.Entry<String, JsonNode> property : schema.path("properties").properties()) {
+            if (!SKIPPED_MEMBERS.contains(property.getKey())) {
+                members.add(new ResourceField(property.getKey(), type(property.getValue(), schemas, 1, references)));
+            }
+        }
+        return members.build();
+    }
+
+    private static FieldType type(JsonNode schema, JsonNode schemas, int depth, Set<String> references)
+    {
+        var reference = reference(schema);
+        if (!reference.isEmpty()) {
+            var resolved = schemas.path(reference.substring(REFERENCE_PREFIX.length()));
+            if (references.contains(reference) || resolved.isMissingNode()) {
+                return FieldType.VARCHAR;
+            }
+            return type(resolved, schemas, depth, ImmutableSet.<String>builder().addAll(references).add(reference).build());
+        }
+
+        if (schema.path("x-kubernetes-int-or-string").asBoolean()) {
+            return FieldType.VARCHAR;
+        }
+
+        return switch (schema.path("type").asText()) {
+            case "string" -> schema.path("format").asText().equals("date-time") ? FieldType.TIMESTAMP : FieldType.VARCHAR;
+            case "integer" -> FieldType.BIGINT;
+            case "number" -> FieldType.DOUBLE;
+            case "boolean" -> FieldType.BOOLEAN;
+            case "array" -> FieldType.array(type(schema.path("items"), schemas, depth, references));
+            case "object", "" -> objectType(schema, schemas, depth, references);
+            default -> FieldType.VARCHAR;
+        };
+    }
+
+    private static FieldType objectType(JsonNode schema, JsonNode schemas, int depth, Set<String> references)
+    {
+        var properties = schema.path("properties");
+        if (!properties.isEmpty()) {
+            if (depth > MAX_ROW_DEPTH) {
+                return FieldType.VARCHAR;
+            }
+            var fields = ImmutableList.<ResourceField>builder();
+            for (Map.Entry<String, JsonNode> property : properties.properties()) {
+                fields.add(new ResourceField(property.getKey(), type(property.getValue(), schemas, depth + 1, references)));
+            }
+            return FieldType.row(fields.build());
+        }
+
+        var additionalProperties = schema.path("additionalProperties");
+        if (additionalProperties.isObject()) {
+            return FieldType.map(type(additionalProperties, schemas, depth, references));
+        }
+
+        return FieldType.VARCHAR;
+    }
+
+    // a reference is either direct, or wrapped in an allOf so that it can carry a description
+    private static String reference(JsonNode schema)
+    {
+        if (schema.has("$ref")) {
+            return schema.path("$ref").asText();
+        }
+        var allOf = schema.path("allOf");
+        if (allOf.size() == 1 && allOf.get(0).has("$ref")) {
+            return allOf.get(0).path("$ref").asText();
+        }
+        return "";
+    }
+}
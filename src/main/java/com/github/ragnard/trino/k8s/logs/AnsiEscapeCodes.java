@@ -0,0 +1,130 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.ragnard.trino.k8s.logs;
+
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import io.trino.spi.block.BlockBuilder;
+import io.trino.spi.type.VarcharType;
+
+import static io.airlift.slice.SizeOf.SIZE_OF_LONG;
+
+/**
+ * Removes ANSI control sequences ({@code ESC [ params intermediates final})
+ * from UTF-8 log messages, which are commonly emitted by programs that
+ * color their output.
+ * <p>
+ * Most lines contain no escape character at all, so lines are first scanned
+ * for an ESC byte eight bytes at a time, and are only copied when one is
+ * found.
+ */
+public final class AnsiEscapeCodes
+{
+    private static final byte ESC = 0x1B;
+
+    private static final long ESC_BYTES = 0x1B1B1B1B1B1B1B1BL;
+    private static final long LOW_BITS = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+
+    private AnsiEscapeCodes() {}
+
+    public static void writeWithoutAnsiCodes(BlockBuilder output, Slice slice, int offset, int length)
+    {
+        int end = offset + length;
+
+        int escape = indexOfEscape(slice, offset, end);
+        if (escape < 0) {
+            VarcharType.VARCHAR.writeSlice(output, slice, offset, length);
+            return;
+        }
+
+        byte[] stripped = new byte[length];
+        int size = 0;
+        int position = offset;
+        while (escape >= 0) {
+            int sequenceEnd = controlSequenceEnd(slice, escape, end);
+            // a lone ESC is kept, as it does not start a control sequence
+            int copyEnd = sequenceEnd < 0 ? escape + 1 : escape;
+
+            slice.getBytes(position, stripped, size, copyEnd - position);
+            size += copyEnd - position;
+            position = sequenceEnd < 0 ? escape + 1 : sequenceEnd;
+
+            escape = indexOfEscape(slice, position, end);
+        }
+        slice.getBytes(position, stripped, size, end - position);
+        size += end - position;
+
+        VarcharType.VARCHAR.writeSlice(output, Slices.wrappedBuffer(stripped, 0, size));
+    }
+
+    /**
+     * Returns the index of the first ESC byte in {@code [from, to)}, or -1.
+     */
+    static int indexOfEscape(Slice slice, int from, int to)
+    {
+        int i = from;
+        for (; i + SIZE_OF_LONG <= to; i += SIZE_OF_LONG) {
+            // sets the high bit of each byte equal to ESC; bits above the first match
+            // may be set spuriously by the borrow, but the lowest one is exact
+            long word = slice.getLongUnchecked(i) ^ ESC_BYTES;
+            long matches = (word - LOW_BITS) & ~word & HIGH_BITS;
+            if (matches != 0) {
+                return i + (Long.numberOfTrailingZeros(matches) >>> 3);
+            }
+        }
+        for (; i < to; i++) {
+            if (slice.getByteUnchecked(i) == ESC) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // ESC '[' [0-9;]* [\x20-\x2F]* [\x40-\x7E], returning the index after the final byte, or -1
+    private static int controlSequenceEnd(Slice slice, int escape, int end)
+    {
+        int i = escape + 1;
+        if (i >= end || slice.getByteUnchecked(i) != '[') {
+            return -1;
+        }
+        i++;
+
+        while (i < end && isParameter(slice.getByteUnchecked(i))) {
+            i++;
+        }
+        while (i < end && isIntermediate(slice.getByteUnchecked(i))) {
+            i++;
+        }
+        if (i < end && isFinal(slice.getByteUnchecked(i))) {
+            return i + 1;
+        }
+        return -1;
+    }
+
+    private static boolean isParameter(byte b)
+    {
+        return (b >= '0' && b <= '9') || b == ';';
+    }
+
+    private static boolean isIntermediate(byte b)
+    {
+        return b >= 0x20 && b <= 0x2F;
+    }
+
+    private static boolean isFinal(byte b)
+    {
+        return b >= 0x40 && b <= 0x7E;
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.ragnard.trino.k8s.logs;
+
+import com.google.common.annotations.VisibleForTesting;
+import io.airlift.slice.Slice;
+import io.trino.spi.TrinoException;
+
+import static io.trino.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A line of a pod log requested with {@code timestamps=true}, that is an
+ * RFC3339Nano timestamp, a space and the message.
+ * <p>
+ * Lines are parsed in place: a single instance is reused for every line of
+ * a split, the timestamp is decoded directly from the bytes and the message
+ * is a range of the line buffer rather than a copy. Values must therefore be
+ * consumed before the next call to {@link #parse}.
+ */
+public final class PodLogLine
+{
+    private static final int SECONDS_PER_DAY = 86_400;
+
+    private final String namespace;
+    private final String container;
+
+    private Slice buffer;
+    private long epochSecond;
+    private int nanoOfSecond;
+    private int logOffset;
+    private int logLength;
+
+    public PodLogLine(String namespace, String container)
+    {
+        this.namespace = requireNonNull(namespace, "namespace is null");
+        this.container = requireNonNull(container, "container is null");
+    }
+
+    /**
+     * Parses the first {@code length} bytes of {@code buffer}, which hold
+     * a single line without its line terminator.
+     */
+    public void parse(Slice buffer, int length)
+    {
+        this.buffer = buffer;
+
+        int space = 0;
+        while (space < length && buffer.getByteUnchecked(space) != ' ') {
+            space++;
+        }
+
+        parseTimestamp(buffer, space, length);
+
+        logOffset = Math.min(space + 1, length);
+        logLength = length - logOffset;
+    }
+
+    public String namespace()
+    {
+        return namespace;
+    }
+
+    public String container()
+    {
+        return container;
+    }
+
+    public long epochSecond()
+    {
+        return epochSecond;
+    }
+
+    public int nanoOfSecond()
+    {
+        return nanoOfSecond;
+    }
+
+    /**
+     * The buffer holding the message, at {@link #logOffset()}.
+     */
+    public Slice buffer()
+    {
+        return buffer;
+    }
+
+    public int logOffset()
+    {
+        return logOffset;
+    }
+
+    public int logLength()
+    {
+        return logLength;
+    }
+
+    public Slice log()
+    {
+        return buffer.slice(logOffset, logLength);
+    }
+
+    // yyyy-MM-ddTHH:mm:ss[.fffffffff](Z|+hh:mm|-hh:mm), with trailing zeros of the fraction omitted
+    private void parseTimestamp(Slice line, int end, int length)
+    {
+        if (end < 20
+                || line.getByteUnchecked(4) != '-'
+                || line.getByteUnchecked(7) != '-'
+                || line.getByteUnchecked(10) != 'T'
+                || line.getByteUnchecked(13) != ':'
+                || line.getByteUnchecked(16) != ':') {
+            throw invalidLine(line, length);
+        }
+
+        int year = digits(line, 0, 4);
+        int month = digits(line, 5, 2);
+        int day = digits(line, 8, 2);
+        int hour = digits(line, 11, 2);
+        int minute = digits(line, 14, 2);
+        int second = digits(line, 17, 2);
+
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month) || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0 || second > 59) {
+            throw invalidLine(line, length);
+        }
+
+        int position = 19;
+        int nanos = 0;
+        if (line.getByteUnchecked(position) == '.') {
+            position++;
+            int start = position;
+            while (position < end && isDigit(line.getByteUnchecked(position))) {
+                if (position - start < 9) {
+                    nanos = nanos * 10 + (line.getByteUnchecked(position) - '0');
+                }
+                position++;
+            }
+            if (position == start) {
+                throw invalidLine(line, length);
+            }
+            for (int i = position - start; i < 9; i++) {
+                nanos *= 10;
+            }
+        }
+
+        int offsetSeconds;
+        byte designator = position < end ? line.getByteUnchecked(position) : 0;
+        if (designator == 'Z' || designator == 'z') {
+            offsetSeconds = 0;
+            position++;
+        }
+        else if ((designator == '+' || designator == '-') && position + 6 <= end && line.getByteUnchecked(position + 3) == ':') {
+            int offsetHours = digits(line, position + 1, 2);
+            int offsetMinutes = digits(line, position + 4, 2);
+            if (offsetHours < 0 || offsetMinutes < 0) {
+                throw invalidLine(line, length);
+            }
+            offsetSeconds = (offsetHours * 3600 + offsetMinutes * 60) * (designator == '-' ? -1 : 1);
+            position += 6;
+        }
+        else {
+            throw invalidLine(line, length);
+        }
+
+        if (position != end) {
+            throw invalidLine(line, length);
+        }
+
+        epochSecond = daysFromCivil(year, month, day) * SECONDS_PER_DAY + hour * 3600 + minute * 60 + second - offsetSeconds;
+        nanoOfSecond = nanos;
+    }
+
+    // http://howardhinnant.github.io/date_algorithms.html#days_from_civil
+    @VisibleForTesting
+    static long daysFromCivil(int year, int month, int day)
+    {
+        year -= month <= 2 ? 1 : 0;
+        int era = (year >= 0 ? year : year - 399) / 400;
+        int yearOfEra = year - era * 400;
+        int dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        int dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return (long) era * 146_097 + dayOfEra - 719_468;
+    }
+
+    private static int daysInMonth(int year, int month)
+    {
+        return switch (month) {
+            case 2 -> (year % 4 == 0 && (year % 100 != 0 || year % 400 == 0)) ? 29 : 28;
+            case 4, 6, 9, 11 -> 30;
+            default -> 31;
+        };
+    }
+
+    private static int digits(Slice line, int offset, int count)
+    {
+        int value = 0;
+        for (int i = offset; i < offset + count; i++) {
+            byte b = line.getByteUnchecked(i);
+            if (!isDigit(b)) {
+                return -1;
+            }
+            value = value * 10 + (b - '0');
+        }
+        return value;
+    }
+
+    private static boolean isDigit(byte b)
+    {
+        return b >= '0' && b <= '9';
+    }
+
+    private static TrinoException invalidLine(Slice line, int length)
+    {
+        return new TrinoException(GENERIC_INTERNAL_ERROR, "Invalid pod log line: " + line.slice(0, Math.min(length, 64)).toStringUtf8());
+    }
+}
@@ -0,0 +1,359 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.ragnard.trino.k8s.logs;
+
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import io.trino.spi.PageBuilder;
+import io.trino.spi.TrinoException;
+import io.trino.spi.connector.ConnectorPageSource;
+import io.trino.spi.connector.SourcePage;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static io.trino.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
+import static io.trino.spi.type.Timestamps.NANOSECONDS_PER_SECOND;
+import static java.lang.Math.floorDiv;
+import static java.lang.Math.floorMod;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Reads a pod log stream incrementally. The stream is read on a background
+ * thread into a bounded queue of chunks, and {@link #isBlocked()} completes
+ * once a chunk or the end of the stream arrives, so a driver thread never
+ * waits on the network, and followed logs of many containers are read at
+ * the same time however few driver threads there are.
+ * <p>
+ * Lines are parsed from the buffered chunks as they arrive, from a reused
+ * byte buffer without decoding them to strings, and a page is emitted as
+ * soon as the buffered input holds no further complete line, so rows are
+ * produced while the log is still downloading and memory is bounded by the
+ * queue and page sizes rather than the log size. The HTTP response is
+ * closed as soon as Trino stops pulling pages.
+ * <p>
+ * In follow mode the stream stays open until {@code MAX_LINES} lines have
+ * been read or the call times out after {@code DURATION}, which ends the
+ * split normally rather than failing it.
+ */
+public class PodLogsPageSource
+        implements ConnectorPageSource
+{
+    private static final long CHUNK_SIZE = 64 * 1024;
+    private static final int MAX_BUFFERED_CHUNKS = 16;
+    private static final int NO_COMPLETE_LINE = -2;
+
+    private final List<PodLogsTableColumn> columns;
+    private final Supplier<ResponseBody> logStream;
+    private final ExecutorService executor;
+    private final PageBuilder pageBuilder;
+    private final PodLogLine logLine;
+    private final long untilEpochSecond;
+    private final int untilNanoOfSecond;
+    private final long maxLines;
+    private final long durationNanos;
+
+    // filled by the reader thread, drained into pending by the driver thread
+    private final BlockingQueue<Buffer> chunks = new ArrayBlockingQueue<>(MAX_BUFFERED_CHUNKS);
+    private final AtomicLong queuedBytes = new AtomicLong();
+    private volatile boolean readerDone;
+    private volatile Throwable failure;
+    private volatile boolean closed;
+    private volatile ResponseBody body;
+    private CompletableFuture<Void> available = new CompletableFuture<>();
+
+    private final Buffer pending = new Buffer();
+    private Slice lineBuffer = Slices.allocate(4096);
+    private Future<?> reader;
+    private boolean endOfStream;
+    private long lines;
+
+    private long completedBytes;
+    private long completedPositions;
+    private long readTimeNanos;
+    private boolean finished;
+
+    public PodLogsPageSource(PodLogsTableFunctionSplit split, List<PodLogsTableColumn> columns, Supplier<ResponseBody> logStream, ExecutorService executor)
+    {
+        requireNonNull(split, "split is null");
+        this.columns = ImmutableList.copyOf(columns);
+        this.logStream = requireNonNull(logStream, "logStream is null");
+        this.executor = requireNonNull(executor, "executor is null");
+        this.pageBuilder = new PageBuilder(columns.stream().map(PodLogsTableColumn::type).collect(toImmutableList()));
+        this.logLine = new PodLogLine(split.namespace(), split.container());
+        long untilEpochNanos = split.untilEpochNanos().orElse(Long.MAX_VALUE);
+        this.untilEpochSecond = floorDiv(untilEpochNanos, NANOSECONDS_PER_SECOND);
+        this.untilNanoOfSecond = (int) floorMod(untilEpochNanos, NANOSECONDS_PER_SECOND);
+        this.maxLines = Math.min(
+                split.maxLines().orElse(Long.MAX_VALUE),
+                split.limit().isPresent() ? split.limit().getAsInt() : Long.MAX_VALUE);
+        this.durationNanos = split.duration().map(duration -> duration.roundTo(NANOSECONDS)).orElse(Long.MAX_VALUE);
+    }
+
+    @Override
+    public SourcePage getNextSourcePage()
+    {
+        if (finished) {
+            return null;
+        }
+        startReader();
+
+        long start = System.nanoTime();
+        try {
+            drainChunks();
+
+            while (!pageBuilder.isFull()) {
+                if (lines >= maxLines) {
+                    close();
+                    break;
+                }
+
+                int length = readLine();
+                if (length == NO_COMPLETE_LINE) {
+                    // emit what we have rather than wait for more input
+                    break;
+                }
+                if (length < 0) {
+                    close();
+                    break;
+                }
+
+                logLine.parse(lineBuffer, length);
+                if (isPastUpperBound()) {
+                    // lines are in timestamp order, so none of the remaining lines can match
+                    close();
+                    break;
+                }
+
+                pageBuilder.declarePosition();
+                for (int i = 0; i < columns.size(); i++) {
+                    columns.get(i).write(logLine, pageBuilder.getBlockBuilder(i));
+                }
+                lines++;
+            }
+        }
+        catch (IOException e) {
+            throw new TrinoException(GENERIC_INTERNAL_ERROR, "Reading pod logs", e);
+        }
+        finally {
+            readTimeNanos += System.nanoTime() - start;
+        }
+
+        if (pageBuilder.isEmpty()) {
+            return null;
+        }
+
+        var page = pageBuilder.build();
+        pageBuilder.reset();
+        completedPositions += page.getPositionCount();
+
+        return SourcePage.create(page);
+    }
+
+    @Override
+    public CompletableFuture<?> isBlocked()
+    {
+        if (finished) {
+            return NOT_BLOCKED;
+        }
+        startReader();
+
+        synchronized (this) {
+            if (readerDone || !chunks.isEmpty() || pending.indexOf((byte) '\n') != -1) {
+                return NOT_BLOCKED;
+            }
+            if (available.isDone()) {
+                available = new CompletableFuture<>();
+            }
+            return available;
+        }
+    }
+
+    private void startReader()
+    {
+        if (reader == null) {
+            reader = executor.submit(this::read);
+        }
+    }
+
+    /**
+     * Runs on the reader thread, and reads the stream into {@link #chunks}
+     * until it ends, fails or the page source is closed.
+     */
+    private void read()
+    {
+        long openedAtNanos = System.nanoTime();
+        try (var body = logStream.get()) {
+            this.body = body;
+            var source = body.source();
+            while (!closed) {
+                var chunk = new Buffer();
+                if (source.read(chunk, CHUNK_SIZE) == -1) {
+                    break;
+                }
+                queuedBytes.addAndGet(chunk.size());
+                chunks.put(chunk);
+                signal();
+            }
+        }
+        catch (IOException e) {
+            // ends normally if the call timed out after DURATION, or the response was closed by close()
+            if (!closed && System.nanoTime() - openedAtNanos < durationNanos) {
+                failure = e;
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        catch (RuntimeException e) {
+            failure = e;
+        }
+        finally {
+            readerDone = true;
+            signal();
+        }
+    }
+
+    private synchronized void signal()
+    {
+        available.complete(null);
+    }
+
+    private void drainChunks()
+    {
+        // read before draining: the reader enqueues every chunk before it is done
+        boolean done = readerDone;
+
+        Buffer chunk;
+        while ((chunk = chunks.poll()) != null) {
+            queuedBytes.addAndGet(-chunk.size());
+            pending.write(chunk, chunk.size());
+        }
+
+        var error = failure;
+        if (error != null) {
+            if (error instanceof TrinoException trinoException) {
+                throw trinoException;
+            }
+            throw new TrinoException(GENERIC_INTERNAL_ERROR, "Reading pod logs", error);
+        }
+        endOfStream = done;
+    }
+
+    private boolean isPastUpperBound()
+    {
+        return logLine.epochSecond() > untilEpochSecond
+                || (logLine.epochSecond() == untilEpochSecond && logLine.nanoOfSecond() > untilNanoOfSecond);
+    }
+
+    /**
+     * Reads the next buffered line into {@link #lineBuffer}, returning its
+     * length without the line terminator, -1 at the end of the stream, or
+     * {@link #NO_COMPLETE_LINE} if the rest of the line has not arrived yet.
+     */
+    private int readLine()
+            throws IOException
+    {
+        long newline = pending.indexOf((byte) '\n');
+        boolean terminated = newline != -1;
+        if (!terminated && !endOfStream) {
+            return NO_COMPLETE_LINE;
+        }
+        // at end of stream the last line may lack a trailing newline
+        long length = terminated ? newline : pending.size();
+        if (!terminated && length == 0) {
+            return -1;
+        }
+
+        if (length > lineBuffer.length()) {
+            lineBuffer = Slices.allocate(Math.toIntExact(Math.max(length, lineBuffer.length() * 2L)));
+        }
+
+        byte[] bytes = lineBuffer.byteArray();
+        int offset = lineBuffer.byteArrayOffset();
+        int read = 0;
+        while (read < length) {
+            read += pending.read(bytes, offset + read, (int) length - read);
+        }
+
+        if (terminated) {
+            pending.skip(1);
+        }
+        completedBytes += terminated ? length + 1 : length;
+
+        return read;
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return finished;
+    }
+
+    @Override
+    public long getCompletedBytes()
+    {
+        return completedBytes;
+    }
+
+    @Override
+    public OptionalLong getCompletedPositions()
+    {
+        return OptionalLong.of(completedPositions);
+    }
+
+    @Override
+    public long getReadTimeNanos()
+    {
+        return readTimeNanos;
+    }
+
+    @Override
+    public long getMemoryUsage()
+    {
+        return pageBuilder.getRetainedSizeInBytes() + lineBuffer.getRetainedSize() + pending.size() + queuedBytes.get();
+    }
+
+    @Override
+    public void close()
+    {
+        finished = true;
+        closed = true;
+        if (reader != null) {
+            // unblocks a reader waiting for queue space; a reader waiting on the network is unblocked by closing the response
+            reader.cancel(true);
+        }
+        var body = this.body;
+        if (body != null) {
+            body.close();
+        }
+        chunks.clear();
+        pending.clear();
+        // the reader may have been cancelled before it started
+        signal();
+    }
+}
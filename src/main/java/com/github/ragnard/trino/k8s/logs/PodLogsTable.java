@@ -15,7 +15,7 @@
 package com.github.ragnard.trino.k8s.logs;
 
 import com.github.ragnard.trino.k8s.KubernetesColumnHandle;
-import io.airlift.slice.Slices;
+import io.trino.spi.block.BlockBuilder;
 import io.trino.spi.connector.ConnectorTableMetadata;
 import io.trino.spi.connector.SchemaTableName;
 import io.trino.spi.function.table.Descriptor;
@@ -27,15 +27,16 @@ import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
 
-import static com.github.ragnard.trino.k8s.client.KubernetesLogs.removeAnsiCodes;
-import static com.github.ragnard.trino.k8s.KubernetesTypes.toTimestamp;
+import static com.github.ragnard.trino.k8s.KubernetesTypes.writeString;
+import static com.github.ragnard.trino.k8s.KubernetesTypes.writeTimestamp;
+import static com.github.ragnard.trino.k8s.logs.AnsiEscapeCodes.writeWithoutAnsiCodes;
 
 public class PodLogsTable
 {
-    public static final PodLogsTableColumn TIMESTAMP = new PodLogsTableColumn("timestamp", TimestampWithTimeZoneType.TIMESTAMP_TZ_NANOS, l -> toTimestamp(l.timestamp()));
-    public static final PodLogsTableColumn NAMESPACE = new PodLogsTableColumn("namespace", VarcharType.VARCHAR, l -> Slices.utf8Slice(l.namespace()));
-    public static final PodLogsTableColumn CONTAINER = new PodLogsTableColumn("container", VarcharType.VARCHAR, l -> Slices.utf8Slice(l.container()));
-    public static final PodLogsTableColumn LOG = new PodLogsTableColumn("log", VarcharType.VARCHAR, l -> Slices.utf8Slice(removeAnsiCodes(l.log())));
+    public static final PodLogsTableColumn TIMESTAMP = new PodLogsTableColumn("timestamp", TimestampWithTimeZoneType.TIMESTAMP_TZ_NANOS, (l, out) -> writeTimestamp(out, l.epochSecond(), l.nanoOfSecond()));
+    public static final PodLogsTableColumn NAMESPACE = new PodLogsTableColumn("namespace", VarcharType.VARCHAR, (l, out) -> writeString(out, l.namespace()));
+    public static final PodLogsTableColumn CONTAINER = new PodLogsTableColumn("container", VarcharType.VARCHAR, (l, out) -> writeString(out, l.container()));
+    public static final PodLogsTableColumn LOG = new PodLogsTableColumn("log", VarcharType.VARCHAR, PodLogsTable::writeLog);
 
     public static final List<PodLogsTableColumn> COLUMNS = List.of(TIMESTAMP, NAMESPACE, CONTAINER, LOG);
 
@@ -57,4 +58,9 @@ public class PodLogsTable
     {
         return COLUMN_LOOKUP.get(handle.name());
     }
+
+    private static void writeLog(PodLogLine line, BlockBuilder output)
+    {
+        writeWithoutAnsiCodes(output, line.buffer(), line.logOffset(), line.logLength());
+    }
 }
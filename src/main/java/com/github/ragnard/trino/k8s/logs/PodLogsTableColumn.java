@@ -14,17 +14,17 @@
 package com.github.ragnard.trino.k8s.logs;
 
 import com.github.ragnard.trino.k8s.KubernetesColumnHandle;
-import com.github.ragnard.trino.k8s.client.KubernetesLogs;
+import io.trino.spi.block.BlockBuilder;
 import io.trino.spi.connector.ColumnHandle;
 import io.trino.spi.connector.ColumnMetadata;
 import io.trino.spi.type.Type;
 
-import java.util.function.Function;
-
-public record PodLogsTableColumn(String name, Type type, ColumnValueFunction value)
+public record PodLogsTableColumn(String name, Type type, ColumnWriter writer)
 {
-    public interface ColumnValueFunction
-            extends Function<KubernetesLogs.PodLogLine, Object> {}
+    public interface ColumnWriter
+    {
+        void write(PodLogLine line, BlockBuilder output);
+    }
 
     public ColumnHandle toColumnHandle()
     {
@@ -38,8 +38,8 @@ public record PodLogsTableColumn(String name, Type type, ColumnValueFunction val
                 .setType(type).build();
     }
 
-    public Object getValue(KubernetesLogs.PodLogLine line)
+    public void write(PodLogLine line, BlockBuilder output)
     {
-        return value.apply(line);
+        writer.write(line, output);
     }
 }
@@ -14,6 +14,8 @@
 package com.github.ragnard.trino.k8s.logs;
 
 import io.airlift.slice.Slice;
+import io.airlift.units.Duration;
+import io.trino.spi.TrinoException;
 import io.trino.spi.connector.ConnectorAccessControl;
 import io.trino.spi.connector.ConnectorSession;
 import io.trino.spi.connector.ConnectorTransactionHandle;
@@ -23,13 +25,18 @@ import io.trino.spi.function.table.ReturnTypeSpecification;
 import io.trino.spi.function.table.ScalarArgument;
 import io.trino.spi.function.table.ScalarArgumentSpecification;
 import io.trino.spi.function.table.TableFunctionAnalysis;
+import io.trino.spi.type.BigintType;
+import io.trino.spi.type.BooleanType;
 import io.trino.spi.type.VarcharType;
 
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.OptionalLong;
 
 import static com.github.ragnard.trino.k8s.logs.PodLogsTable.DESCRIPTOR;
+import static io.trino.spi.StandardErrorCode.INVALID_FUNCTION_ARGUMENT;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 public class PodLogsTableFunction
         extends AbstractConnectorTableFunction
@@ -50,12 +57,30 @@ public class PodLogsTableFunction
             .defaultValue(null)
             .build();
 
+    public static final ScalarArgumentSpecification FOLLOW = ScalarArgumentSpecification.builder()
+            .name("FOLLOW")
+            .type(BooleanType.BOOLEAN)
+            .defaultValue(false)
+            .build();
+
+    public static final ScalarArgumentSpecification DURATION = ScalarArgumentSpecification.builder()
+            .name("DURATION")
+            .type(VarcharType.VARCHAR)
+            .defaultValue(null)
+            .build();
+
+    public static final ScalarArgumentSpecification MAX_LINES = ScalarArgumentSpecification.builder()
+            .name("MAX_LINES")
+            .type(BigintType.BIGINT)
+            .defaultValue(null)
+            .build();
+
     public PodLogsTableFunction()
     {
         super(
                 "system",
                 "logs",
-                List.of(NAMESPACE, SELECTOR, CONTAINER),
+                List.of(NAMESPACE, SELECTOR, CONTAINER, FOLLOW, DURATION, MAX_LINES),
                 new ReturnTypeSpecification.DescribedTable(DESCRIPTOR));
     }
 
@@ -65,12 +90,46 @@ public class PodLogsTableFunction
         var namespace = getRequiredString(arguments.get(NAMESPACE.getName()));
         var selector = getRequiredString(arguments.get(SELECTOR.getName()));
         var container = getOptionalString(arguments.get(CONTAINER.getName()));
+        var follow = (Boolean) ((ScalarArgument) arguments.get(FOLLOW.getName())).getValue();
+        var duration = Optional.ofNullable(getOptionalString(arguments.get(DURATION.getName()))).map(PodLogsTableFunction::parseDuration);
+        var maxLines = (Long) ((ScalarArgument) arguments.get(MAX_LINES.getName())).getValue();
+
+        if (maxLines != null && maxLines <= 0) {
+            throw new TrinoException(INVALID_FUNCTION_ARGUMENT, "MAX_LINES must be positive");
+        }
+        if (duration.isPresent() && duration.get().roundTo(MILLISECONDS) < 1) {
+            // the call timeout has millisecond precision, and a timeout of zero is none
+            throw new TrinoException(INVALID_FUNCTION_ARGUMENT, "DURATION must be at least 1ms");
+        }
+        if (duration.isPresent() && !Boolean.TRUE.equals(follow)) {
+            // a read that times out ends normally, which would silently return part of the log
+            throw new TrinoException(INVALID_FUNCTION_ARGUMENT, "DURATION requires FOLLOW");
+        }
+        if (Boolean.TRUE.equals(follow) && duration.isEmpty() && maxLines == null) {
+            throw new TrinoException(INVALID_FUNCTION_ARGUMENT, "FOLLOW requires DURATION or MAX_LINES to bound the query");
+        }
 
         return TableFunctionAnalysis.builder()
-                .handle(new PodLogsTableFunctionHandle(namespace, selector, Optional.ofNullable(container)))
+                .handle(new PodLogsTableFunctionHandle(
+                        namespace,
+                        selector,
+                        Optional.ofNullable(container),
+                        Boolean.TRUE.equals(follow),
+                        duration,
+                        maxLines == null ? OptionalLong.empty() : OptionalLong.of(maxLines)))
                 .build();
     }
 
+    private static Duration parseDuration(String value)
+    {
+        try {
+            return Duration.valueOf(value);
+        }
+        catch (IllegalArgumentException e) {
+            throw new TrinoException(INVALID_FUNCTION_ARGUMENT, "Invalid DURATION: " + value, e);
+        }
+    }
+
     private static String getRequiredString(Argument argument)
     {
         var value = ((ScalarArgument) argument).getValue();
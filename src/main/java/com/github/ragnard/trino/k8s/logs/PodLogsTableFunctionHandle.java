@@ -15,14 +15,19 @@ package com.github.ragnard.trino.k8s.logs;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.airlift.slice.SizeOf;
+import io.airlift.units.Duration;
 import io.trino.spi.function.table.ConnectorTableFunctionHandle;
 
 import java.util.Optional;
+import java.util.OptionalLong;
 
 public record PodLogsTableFunctionHandle(
         @JsonProperty String namespace,
         @JsonProperty String selector,
-        @JsonProperty Optional<String> container)
+        @JsonProperty Optional<String> container,
+        @JsonProperty boolean follow,
+        @JsonProperty Optional<Duration> duration,
+        @JsonProperty OptionalLong maxLines)
         implements ConnectorTableFunctionHandle
 {
     private static final long INSTANCE_SIZE = SizeOf.instanceSize(PodLogsTableFunctionHandle.class);
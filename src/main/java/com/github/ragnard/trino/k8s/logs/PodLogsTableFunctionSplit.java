@@ -16,14 +16,22 @@ package com.github.ragnard.trino.k8s.logs;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.github.ragnard.trino.k8s.KubernetesSplit;
 import io.airlift.slice.SizeOf;
+import io.airlift.units.Duration;
 
+import java.util.Optional;
 import java.util.OptionalInt;
+import java.util.OptionalLong;
 
 public record PodLogsTableFunctionSplit(
         @JsonProperty String namespace,
         @JsonProperty String pod,
         @JsonProperty String container,
-        @JsonProperty OptionalInt limit)
+        @JsonProperty OptionalInt limit,
+        @JsonProperty OptionalLong sinceEpochSecond,
+        @JsonProperty OptionalLong untilEpochNanos,
+        @JsonProperty boolean follow,
+        @JsonProperty Optional<Duration> duration,
+        @JsonProperty OptionalLong maxLines)
         implements KubernetesSplit
 {
     public static final long INSTANCE_SIZE = SizeOf.instanceSize(PodLogsTableFunctionSplit.class);
@@ -33,9 +41,4 @@ public record PodLogsTableFunctionSplit(
     {
         return INSTANCE_SIZE;
     }
-
-    public Integer limitOrNull()
-    {
-        return limit.isPresent() ? limit.getAsInt() : null;
-    }
 }
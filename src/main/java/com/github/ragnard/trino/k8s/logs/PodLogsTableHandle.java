@@ -15,22 +15,106 @@ package com.github.ragnard.trino.k8s.logs;
 
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.github.ragnard.trino.k8s.KubernetesTableHandle;
+import io.trino.spi.connector.ColumnHandle;
+import io.trino.spi.connector.ConnectorTableHandle;
+import io.trino.spi.connector.Constraint;
+import io.trino.spi.connector.ConstraintApplicationResult;
+import io.trino.spi.predicate.Range;
+import io.trino.spi.predicate.TupleDomain;
+import io.trino.spi.type.LongTimestampWithTimeZone;
 
+import java.util.Optional;
 import java.util.OptionalInt;
+import java.util.OptionalLong;
+
+import static com.github.ragnard.trino.k8s.logs.PodLogsTable.TIMESTAMP;
+import static io.trino.spi.type.Timestamps.MILLISECONDS_PER_SECOND;
+import static io.trino.spi.type.Timestamps.NANOSECONDS_PER_MILLISECOND;
+import static io.trino.spi.type.Timestamps.PICOSECONDS_PER_NANOSECOND;
+import static java.lang.Math.floorDiv;
 
 public record PodLogsTableHandle(
         @JsonProperty("functionHandle") PodLogsTableFunctionHandle functionHandle,
+        @JsonProperty("constraint") TupleDomain<ColumnHandle> constraint,
         @JsonProperty("limit") OptionalInt limit)
         implements KubernetesTableHandle
 {
     public PodLogsTableHandle(PodLogsTableFunctionHandle functionHandle)
     {
-        this(functionHandle, OptionalInt.empty());
+        this(functionHandle, TupleDomain.all(), OptionalInt.empty());
     }
 
     @Override
     public KubernetesTableHandle withLimit(int limit)
     {
-        return new PodLogsTableHandle(functionHandle, OptionalInt.of(limit));
+        return new PodLogsTableHandle(functionHandle, constraint, OptionalInt.of(limit));
+    }
+
+    /**
+     * Accepts predicates on the {@code timestamp} column. They are only
+     * used to narrow what is read from the API, as {@code sinceTime} has
+     * second precision, so they are also left for Trino to evaluate.
+     */
+    @Override
+    public Optional<ConstraintApplicationResult<ConnectorTableHandle>> applyFilter(Constraint newConstraint)
+    {
+        var newDomain = constraint.intersect(newConstraint.getSummary()
+                .filter((column, _) -> column.equals(TIMESTAMP.toColumnHandle())));
+
+        if (newDomain.equals(constraint)) {
+            return Optional.empty();
+        }
+
+        var newHandle = new PodLogsTableHandle(functionHandle, newDomain, limit);
+
+        return Optional.of(new ConstraintApplicationResult<>(newHandle, newConstraint.getSummary(), newConstraint.getExpression(), false));
+    }
+
+    /**
+     * The lower bound of the timestamp predicate, truncated to seconds.
+     */
+    public OptionalLong sinceEpochSecond()
+    {
+        return timestampSpan()
+                .filter(span -> !span.isLowUnbounded())
+                .map(span -> OptionalLong.of(floorDiv(((LongTimestampWithTimeZone) span.getLowBoundedValue()).getEpochMillis(), MILLISECONDS_PER_SECOND)))
+                .orElse(OptionalLong.empty());
+    }
+
+    /**
+     * The inclusive upper bound of the timestamp predicate, in nanoseconds.
+     */
+    public OptionalLong untilEpochNanos()
+    {
+        return timestampSpan()
+                .filter(span -> !span.isHighUnbounded())
+                .map(span -> {
+                    var high = (LongTimestampWithTimeZone) span.getHighBoundedValue();
+                    try {
+                        long nanos = Math.addExact(
+                                Math.multiplyExact(high.getEpochMillis(), NANOSECONDS_PER_MILLISECOND),
+                                high.getPicosOfMilli() / PICOSECONDS_PER_NANOSECOND);
+                        return OptionalLong.of(span.isHighInclusive() ? nanos : nanos - 1);
+                    }
+                    catch (ArithmeticException e) {
+                        // beyond the range of epoch nanoseconds, so no line can exceed it
+                        return OptionalLong.empty();
+                    }
+                })
+                .orElse(OptionalLong.empty());
+    }
+
+    private Optional<Range> timestampSpan()
+    {
+        if (constraint.isNone()) {
+            return Optional.empty();
+        }
+
+        var domain = constraint.getDomain(TIMESTAMP.toColumnHandle(), TIMESTAMP.type());
+        if (domain.isAll() || domain.getValues().isNone()) {
+            return Optional.empty();
+        }
+
+        return Optional.of(domain.getValues().getRanges().getSpan());
     }
 }
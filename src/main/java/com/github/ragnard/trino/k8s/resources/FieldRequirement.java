@@ -0,0 +1,126 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.ragnard.trino.k8s.resources;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.joining;
+
+/**
+ * A single requirement of a Kubernetes field selector, for example
+ * {@code status.phase=Failed} or {@code spec.nodeName!=node-1}.
+ */
+public record FieldRequirement(
+        @JsonProperty String field,
+        @JsonProperty Operator operator,
+        @JsonProperty String value)
+{
+    public enum Operator
+    {
+        EQUALS,
+        NOT_EQUALS,
+    }
+
+    public FieldRequirement
+    {
+        requireNonNull(field, "field is null");
+        requireNonNull(operator, "operator is null");
+        requireNonNull(value, "value is null");
+    }
+
+    public static FieldRequirement equal(String field, String value)
+    {
+        return new FieldRequirement(field, Operator.EQUALS, value);
+    }
+
+    public static FieldRequirement notEqual(String field, String value)
+    {
+        return new FieldRequirement(field, Operator.NOT_EQUALS, value);
+    }
+
+    public static String toSelector(List<FieldRequirement> requirements)
+    {
+        return requirements.stream()
+                .map(FieldRequirement::toSelector)
+                .collect(joining(","));
+    }
+
+    public String toSelector()
+    {
+        return switch (operator) {
+            case EQUALS -> field + "=" + escapeValue(value);
+            case NOT_EQUALS -> field + "!=" + escapeValue(value);
+        };
+    }
+
+    /**
+     * Evaluates the requirement against the JSON representation of an
+     * object, for objects that are filtered locally rather than by a LIST
+     * call. Like the API server, absent fields compare as the empty string.
+     */
+    public boolean matches(JsonObject object)
+    {
+        var actual = lookup(object);
+
+        return switch (operator) {
+            case EQUALS -> value.equals(actual);
+            case NOT_EQUALS -> !value.equals(actual);
+        };
+    }
+
+    public static boolean matchesAll(List<FieldRequirement> requirements, JsonObject object)
+    {
+        for (FieldRequirement requirement : requirements) {
+            if (!requirement.matches(object)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private String lookup(JsonObject object)
+    {
+        JsonElement current = object;
+        for (String segment : FieldSelectors.valuePath(field).split("\\.")) {
+            if (current == null || !current.isJsonObject()) {
+                return "";
+            }
+            current = current.getAsJsonObject().get(segment);
+        }
+
+        if (current == null || !current.isJsonPrimitive()) {
+            return "";
+        }
+        return current.getAsString();
+    }
+
+    // see fields.EscapeValue in k8s.io/apimachinery
+    private static String escapeValue(String value)
+    {
+        var escaped = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\\' || c == ',' || c == '=') {
+                escaped.append('\\');
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+}
@@ -0,0 +1,276 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.ragnard.trino.k8s.resources;
+
+import com.github.ragnard.trino.k8s.KubernetesColumnHandle;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.slice.Slice;
+import io.trino.spi.connector.ColumnHandle;
+import io.trino.spi.expression.Call;
+import io.trino.spi.expression.ConnectorExpression;
+import io.trino.spi.expression.Constant;
+import io.trino.spi.expression.FieldDereference;
+import io.trino.spi.expression.Variable;
+import io.trino.spi.predicate.Domain;
+import io.trino.spi.type.RowType;
+import io.trino.spi.type.VarcharType;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import static com.github.ragnard.trino.k8s.resources.ResourceTableColumns.RESOURCE;
+import static io.trino.spi.expression.StandardFunctions.EQUAL_OPERATOR_FUNCTION_NAME;
+import static io.trino.spi.expression.StandardFunctions.NOT_EQUAL_OPERATOR_FUNCTION_NAME;
+
+/**
+ * Translates predicates on well-known fields of the {@code resource} column,
+ * or of the typed columns of top-level members, into field selector
+ * requirements that can be evaluated by the API server.
+ * <p>
+ * The API server only supports field selectors on a small, per-resource set
+ * of fields, listed in {@link #SELECTABLE_FIELDS}. A predicate such as
+ * {@code json_extract_scalar(resource, '$.status.phase') = 'Failed'} or
+ * {@code status.phase = 'Failed'} on the pods table is translated to
+ * {@code status.phase=Failed}. The same holds for a single value domain on
+ * such a {@code json_extract_scalar} call, once it is pushed down as a
+ * column of its own, see {@link JsonExtraction}.
+ * <p>
+ * {@code metadata.name} is selectable on every resource, but is pushed down
+ * from predicates on the {@code name} column rather than from here.
+ */
+public final class FieldSelectors
+{
+    public static final String NAME_FIELD = "metadata.name";
+
+    private static final String JSON_EXTRACT_SCALAR_FUNCTION_NAME = "json_extract_scalar";
+
+    private static final Pattern JSON_PATH = Pattern.compile("\\$(\\.[A-Za-z0-9_]+)+");
+    private static final Pattern FIELD_NAME = Pattern.compile("[A-Za-z0-9_]+");
+
+    // Keyed by table name; see the field label conversion functions registered by each API group
+    private static final Map<String, Set<String>> SELECTABLE_FIELDS = ImmutableMap.<String, Set<String>>builder()
+            .put("pods", ImmutableSet.of(
+                    "spec.nodeName",
+                    "spec.restartPolicy",
+                    "spec.schedulerName",
+                    "spec.serviceAccountName",
+                    "spec.hostNetwork",
+                    "status.phase",
+                    "status.podIP",
+                    "status.nominatedNodeName"))
+            .put("events", ImmutableSet.of(
+                    "involvedObject.kind",
+                    "involvedObject.namespace",
+                    "involvedObject.name",
+                    "involvedObject.uid",
+                    "involvedObject.apiVersion",
+                    "involvedObject.resourceVersion",
+                    "involvedObject.fieldPath",
+                    "reason",
+                    "reportingComponent",
+                    "source.component",
+                    "type"))
+            .put("namespaces", ImmutableSet.of("status.phase"))
+            .put("nodes", ImmutableSet.of("spec.unschedulable"))
+            .put("secrets", ImmutableSet.of("type"))
+            .put("replicationcontrollers", ImmutableSet.of("status.replicas"))
+            .put("apps.replicasets", ImmutableSet.of("status.replicas"))
+            .put("batch.jobs", ImmutableSet.of("status.successful"))
+            .put("certificates.k8s.io.certificatesigningrequests", ImmutableSet.of("spec.signerName"))
+            .buildOrThrow();
+
+    // Fields whose selector is named differently from the path of their value
+    private static final Map<String, String> SELECTOR_FIELDS = ImmutableMap.of("source.component", "source");
+
+    // Fields the API server compares as "false" or "0" when absent, where the engine sees NULL,
+    // so an equality on them narrows the list but is still evaluated by the engine
+    private static final Set<String> DEFAULTED_FIELDS = ImmutableSet.of(
+            "spec.hostNetwork",
+            "spec.unschedulable",
+            "status.replicas",
+            "status.successful");
+
+    public record Extraction(List<FieldRequirement> requirements, ConnectorExpression remainingExpression) {}
+
+    private record Translation(FieldRequirement requirement, boolean exact) {}
+
+    private FieldSelectors() {}
+
+    public static Extraction extract(String tableName, ConnectorExpression expression, Map<String, ColumnHandle> assignments)
+    {
+        var selectableFields = SELECTABLE_FIELDS.getOrDefault(tableName, Set.of());
+        if (selectableFields.isEmpty()) {
+            return new Extraction(List.of(), expression);
+        }
+
+        var requirements = ImmutableList.<FieldRequirement>builder();
+        var remaining = ImmutableList.<ConnectorExpression>builder();
+
+        for (ConnectorExpression conjunct : LabelSelectors.extractConjuncts(expression)) {
+            var translation = translate(conjunct, selectableFields, assignments);
+            translation.ifPresent(t -> requirements.add(t.requirement()));
+            if (translation.isEmpty() || !translation.get().exact()) {
+                remaining.add(conjunct);
+            }
+        }
+
+        return new Extraction(requirements.build(), LabelSelectors.and(remaining.build()));
+    }
+
+    /**
+     * Returns the requirement a domain on a pushed down
+     * {@code json_extract_scalar} column is equivalent to, if any. The
+     * requirement only narrows the LIST call, so the domain is still
+     * enforced by the engine.
+     */
+    public static Optional<FieldRequirement> fromDomain(String tableName, KubernetesColumnHandle column, Domain domain)
+    {
+        if (domain.isNullAllowed() || !domain.isSingleValue() || !(column.type() instanceof VarcharType)) {
+            return Optional.empty();
+        }
+
+        var selectableFields = SELECTABLE_FIELDS.getOrDefault(tableName, Set.of());
+        var value = ((Slice) domain.getSingleValue()).toStringUtf8();
+        return extractionField(column)
+                .filter(selectableFields::contains)
+                .filter(_ -> !value.isEmpty())
+                .map(field -> FieldRequirement.equal(selectorField(field), value));
+    }
+
+    /**
+     * Returns the path of the value a selector field compares, for example
+     * {@code source.component} for {@code source} on events.
+     */
+    public static String valuePath(String selectorField)
+    {
+        return SELECTOR_FIELDS.entrySet().stream()
+                .filter(entry -> entry.getValue().equals(selectorField))
+                .map(Map.Entry::getKey)
+                .findFirst()
+                .orElse(selectorField);
+    }
+
+    private static String selectorField(String field)
+    {
+        return SELECTOR_FIELDS.getOrDefault(field, field);
+    }
+
+    private static Optional<Translation> translate(ConnectorExpression expression, Set<String> selectableFields, Map<String, ColumnHandle> assignments)
+    {
+        if (!(expression instanceof Call call)) {
+            return Optional.empty();
+        }
+
+        var name = call.getFunctionName();
+        if (!name.equals(EQUAL_OPERATOR_FUNCTION_NAME) && !name.equals(NOT_EQUAL_OPERATOR_FUNCTION_NAME)) {
+            return Optional.empty();
+        }
+
+        var arguments = call.getArguments();
+        var field = field(arguments.get(0), assignments).or(() -> field(arguments.get(1), assignments))
+                .filter(selectableFields::contains);
+        // The API server does not distinguish an empty value from an absent field
+        var value = stringConstant(arguments.get(1)).or(() -> stringConstant(arguments.get(0)))
+                .filter(v -> !v.isEmpty());
+        if (field.isEmpty() || value.isEmpty()) {
+            return Optional.empty();
+        }
+
+        // Objects without the field match != on the API server, but yield NULL in Trino
+        var selectorField = selectorField(field.get());
+        return Optional.of(name.equals(EQUAL_OPERATOR_FUNCTION_NAME)
+                ? new Translation(FieldRequirement.equal(selectorField, value.get()), !DEFAULTED_FIELDS.contains(field.get()))
+                : new Translation(FieldRequirement.notEqual(selectorField, value.get()), false));
+    }
+
+    private static Optional<String> field(ConnectorExpression expression, Map<String, ColumnHandle> assignments)
+    {
+        return jsonExtractField(expression, assignments)
+                .or(() -> dereferenceField(expression, assignments))
+                .or(() -> expression instanceof Variable variable && assignments.get(variable.getName()) instanceof KubernetesColumnHandle handle
+                        ? extractionField(handle)
+                        : Optional.empty());
+    }
+
+    private static Optional<String> extractionField(KubernetesColumnHandle column)
+    {
+        return column.extraction()
+                .filter(extraction -> extraction.scalar() && extraction.column().equals(RESOURCE.name()))
+                .map(JsonExtraction::path)
+                .filter(path -> path.stream().allMatch(segment -> FIELD_NAME.matcher(segment).matches()))
+                .map(path -> String.join(".", path));
+    }
+
+    private static Optional<String> jsonExtractField(ConnectorExpression expression, Map<String, ColumnHandle> assignments)
+    {
+        if (!(expression instanceof Call call)
+                || call.getFunctionName().getCatalogSchema().isPresent()
+                || !call.getFunctionName().getName().equals(JSON_EXTRACT_SCALAR_FUNCTION_NAME)) {
+            return Optional.empty();
+        }
+
+        if (!(call.getArguments().get(0) instanceof Variable variable) || !isResourceColumn(assignments.get(variable.getName()))) {
+            return Optional.empty();
+        }
+
+        return JsonExtraction.pathConstant(call.getArguments().get(1))
+                .filter(path -> JSON_PATH.matcher(path).matches())
+                .map(path -> path.substring(2));
+    }
+
+    private static Optional<String> dereferenceField(ConnectorExpression expression, Map<String, ColumnHandle> assignments)
+    {
+        var names = new ArrayDeque<String>();
+        var current = expression;
+        while (current instanceof FieldDereference dereference) {
+            var name = ((RowType) dereference.getTarget().getType()).getFields().get(dereference.getField()).getName();
+            if (name.isEmpty()) {
+                return Optional.empty();
+            }
+            names.addFirst(name.get());
+            current = dereference.getTarget();
+        }
+
+        if (names.isEmpty()
+                || !(current instanceof Variable variable)
+                || !(assignments.get(variable.getName()) instanceof KubernetesColumnHandle handle)
+                || !(handle.type() instanceof RowType)) {
+            return Optional.empty();
+        }
+
+        names.addFirst(handle.name());
+        return Optional.of(String.join(".", names));
+    }
+
+    private static Optional<String> stringConstant(ConnectorExpression expression)
+    {
+        if (expression instanceof Constant constant && constant.getValue() instanceof Slice slice) {
+            return Optional.of(slice.toStringUtf8());
+        }
+        return Optional.empty();
+    }
+
+    private static boolean isResourceColumn(ColumnHandle columnHandle)
+    {
+        return columnHandle instanceof KubernetesColumnHandle handle
+                && handle.name().equals(RESOURCE.name())
+                && handle.type().equals(RESOURCE.type());
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.ragnard.trino.k8s.resources;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.SizeOf;
+import io.trino.spi.type.ArrayType;
+import io.trino.spi.type.BigintType;
+import io.trino.spi.type.BooleanType;
+import io.trino.spi.type.DoubleType;
+import io.trino.spi.type.MapType;
+import io.trino.spi.type.RowType;
+import io.trino.spi.type.TimestampWithTimeZoneType;
+import io.trino.spi.type.Type;
+import io.trino.spi.type.VarcharType;
+
+import java.util.List;
+
+import static com.github.ragnard.trino.k8s.KubernetesTypes.TYPE_OPERATORS;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The type of a field of a resource, as derived from its OpenAPI schema.
+ * Unlike a Trino {@link Type} it can be serialized without a type manager,
+ * so it can be kept in discovery snapshots.
+ * <p>
+ * Arrays and maps have an {@code elementType}, the type of their elements
+ * and values respectively; map keys are always strings. Rows have
+ * {@code fields}.
+ */
+public record FieldType(
+        @JsonProperty Kind kind,
+        @JsonProperty FieldType elementType,
+        @JsonProperty List<ResourceField> fields)
+{
+    private static final int INSTANCE_SIZE = SizeOf.instanceSize(FieldType.class);
+
+    public static final FieldType VARCHAR = new FieldType(Kind.VARCHAR, null, List.of());
+    public static final FieldType BIGINT = new FieldType(Kind.BIGINT, null, List.of());
+    public static final FieldType DOUBLE = new FieldType(Kind.DOUBLE, null, List.of());
+    public static final FieldType BOOLEAN = new FieldType(Kind.BOOLEAN, null, List.of());
+    public static final FieldType TIMESTAMP = new FieldType(Kind.TIMESTAMP, null, List.of());
+
+    public enum Kind
+    {
+        VARCHAR,
+        BIGINT,
+        DOUBLE,
+        BOOLEAN,
+        TIMESTAMP,
+        ARRAY,
+        MAP,
+        ROW,
+    }
+
+    public FieldType
+    {
+        requireNonNull(kind, "kind is null");
+        fields = fields == null ? List.of() : ImmutableList.copyOf(fields);
+        checkArgument((elementType != null) == (kind == Kind.ARRAY || kind == Kind.MAP), "elementType is required for arrays and maps only");
+        checkArgument(fields.isEmpty() != (kind == Kind.ROW), "fields are required for rows only");
+    }
+
+    public static FieldType array(FieldType elementType)
+    {
+        return new FieldType(Kind.ARRAY, elementType, List.of());
+    }
+
+    public static FieldType map(FieldType valueType)
+    {
+        return new FieldType(Kind.MAP, valueType, List.of());
+    }
+
+    public static FieldType row(List<ResourceField> fields)
+    {
+        return new FieldType(Kind.ROW, null, fields);
+    }
+
+    public Type toType()
+    {
+        return switch (kind) {
+            case VARCHAR -> VarcharType.VARCHAR;
+            case BIGINT -> BigintType.BIGINT;
+            case DOUBLE -> DoubleType.DOUBLE;
+            case BOOLEAN -> BooleanType.BOOLEAN;
+            case TIMESTAMP -> TimestampWithTimeZoneType.TIMESTAMP_TZ_MICROS;
+            case ARRAY -> new ArrayType(elementType.toType());
+            case MAP -> new MapType(VarcharType.VARCHAR, elementType.toType(), TYPE_OPERATORS);
+            case ROW -> RowType.from(fields.stream()
+                    .map(field -> RowType.field(field.name(), field.type().toType()))
+                    .collect(toImmutableList()));
+        };
+    }
+
+    public long getRetainedSizeInBytes()
+    {
+        return INSTANCE_SIZE
+                + (elementType == null ? 0 : elementType.getRetainedSizeInBytes())
+                + SizeOf.estimatedSizeOf(fields, ResourceField::getRetainedSizeInBytes);
+    }
+}
@@ -0,0 +1,247 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.ragnard.trino.k8s.resources;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.github.ragnard.trino.k8s.KubernetesColumnHandle;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.SizeOf;
+import io.airlift.slice.Slice;
+import io.trino.spi.TrinoException;
+import io.trino.spi.block.BlockBuilder;
+import io.trino.spi.connector.ColumnHandle;
+import io.trino.spi.expression.Call;
+import io.trino.spi.expression.ConnectorExpression;
+import io.trino.spi.expression.Constant;
+import io.trino.spi.expression.Variable;
+import io.trino.spi.type.Type;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+import static com.fasterxml.jackson.core.JsonToken.VALUE_NULL;
+import static com.github.ragnard.trino.k8s.resources.ResourceTableColumns.METADATA;
+import static com.github.ragnard.trino.k8s.resources.ResourceTableColumns.RESOURCE;
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.trino.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
+import static io.trino.spi.expression.StandardFunctions.CAST_FUNCTION_NAME;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A {@code json_extract} or {@code json_extract_scalar} call with a
+ * constant path on the {@code resource} or {@code metadata} column, pushed
+ * down as a column of its own. The connector keeps only the extracted value
+ * while decoding objects, so the column it is extracted from is never
+ * written, nor parsed again by the engine.
+ * <p>
+ * Only paths made of {@code .name}, {@code ["name"]} and {@code [index]}
+ * segments are pushed down. Like in the engine, a numeric segment also
+ * addresses an element of an array.
+ */
+public record JsonExtraction(
+        @JsonProperty String column,
+        @JsonProperty List<String> path,
+        @JsonProperty boolean scalar)
+{
+    private static final int INSTANCE_SIZE = SizeOf.instanceSize(JsonExtraction.class);
+
+    private static final String JSON_EXTRACT_FUNCTION_NAME = "json_extract";
+    private static final String JSON_EXTRACT_SCALAR_FUNCTION_NAME = "json_extract_scalar";
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+    private static final Pattern NAME = Pattern.compile("[A-Za-z0-9_]+");
+    private static final Pattern INDEX = Pattern.compile("[0-9]{1,9}");
+    private static final Pattern QUOTED_NAME = Pattern.compile("\"[^\"\\\\]+\"");
+
+    public JsonExtraction
+    {
+        requireNonNull(column, "column is null");
+        path = ImmutableList.copyOf(path);
+    }
+
+    /**
+     * Returns the extraction a call is equivalent to, if it can be pushed down.
+     */
+    public static Optional<JsonExtraction> from(ConnectorExpression expression, Map<String, ColumnHandle> assignments)
+    {
+        if (!(expression instanceof Call call) || call.getFunctionName().getCatalogSchema().isPresent() || call.getArguments().size() != 2) {
+            return Optional.empty();
+        }
+
+        var name = call.getFunctionName().getName();
+        if (!name.equals(JSON_EXTRACT_FUNCTION_NAME) && !name.equals(JSON_EXTRACT_SCALAR_FUNCTION_NAME)) {
+            return Optional.empty();
+        }
+
+        if (!(call.getArguments().get(0) instanceof Variable variable)
+                || !(assignments.get(variable.getName()) instanceof KubernetesColumnHandle column)
+                || column.extraction().isPresent()
+                || !isJsonColumn(column)) {
+            return Optional.empty();
+        }
+
+        return pathConstant(call.getArguments().get(1))
+                .flatMap(JsonExtraction::parsePath)
+                // the resource column leaves out the metadata, which a path into the object would find
+                .filter(path -> !(column.name().equals(RESOURCE.name()) && path.getFirst().equals(METADATA.name())))
+                .map(path -> new JsonExtraction(column.name(), path, name.equals(JSON_EXTRACT_SCALAR_FUNCTION_NAME)));
+    }
+
+    /**
+     * Returns the path of the extracted value within the object, see
+     * {@link ResourceRow#valueJson}.
+     */
+    public List<String> objectPath()
+    {
+        if (column.equals(METADATA.name())) {
+            return ImmutableList.<String>builder().add(METADATA.name()).addAll(path).build();
+        }
+        return path;
+    }
+
+    /**
+     * Returns the name of the column the extraction is pushed down as.
+     */
+    public String columnName()
+    {
+        var jsonPath = new StringBuilder("$");
+        for (String segment : path) {
+            if (INDEX.matcher(segment).matches()) {
+                jsonPath.append('[').append(segment).append(']');
+            }
+            else if (NAME.matcher(segment).matches()) {
+                jsonPath.append('.').append(segment);
+            }
+            else {
+                jsonPath.append("[\"").append(segment).append("\"]");
+            }
+        }
+        return "%s(%s, '%s')".formatted(scalar ? JSON_EXTRACT_SCALAR_FUNCTION_NAME : JSON_EXTRACT_FUNCTION_NAME, column, jsonPath);
+    }
+
+    /**
+     * Writes the extracted value, given as JSON, the way the engine would:
+     * the text of a scalar for {@code json_extract_scalar}, or null for
+     * anything else, and the value as compact JSON for {@code json_extract}.
+     */
+    public void write(Type type, Slice json, BlockBuilder output)
+    {
+        if (json == null) {
+            output.appendNull();
+            return;
+        }
+
+        try (var parser = JSON_FACTORY.createParser(json.byteArray(), json.byteArrayOffset(), json.length())) {
+            var token = parser.nextToken();
+            if (scalar) {
+                if (token.isScalarValue() && token != VALUE_NULL) {
+                    type.writeSlice(output, utf8Slice(parser.getText()));
+                }
+                else {
+                    output.appendNull();
+                }
+                return;
+            }
+
+            var value = new DynamicSliceOutput(json.length());
+            try (var generator = JSON_FACTORY.createGenerator((OutputStream) value)) {
+                generator.copyCurrentStructure(parser);
+            }
+            type.writeSlice(output, value.slice());
+        }
+        catch (IOException e) {
+            throw new TrinoException(GENERIC_INTERNAL_ERROR, "Invalid JSON value at %s".formatted(columnName()), e);
+        }
+    }
+
+    public long getRetainedSizeInBytes()
+    {
+        return INSTANCE_SIZE
+                + SizeOf.estimatedSizeOf(column)
+                + SizeOf.estimatedSizeOf(path, SizeOf::estimatedSizeOf);
+    }
+
+    /**
+     * Returns the value of a constant JSON path argument, which is either a
+     * string, or a string cast to a JSON path.
+     */
+    static Optional<String> pathConstant(ConnectorExpression expression)
+    {
+        if (expression instanceof Call call && call.getFunctionName().equals(CAST_FUNCTION_NAME) && call.getArguments().size() == 1) {
+            return pathConstant(call.getArguments().getFirst());
+        }
+        if (expression instanceof Constant constant && constant.getValue() instanceof Slice slice) {
+            return Optional.of(slice.toStringUtf8());
+        }
+        return Optional.empty();
+    }
+
+    static Optional<List<String>> parsePath(String jsonPath)
+    {
+        if (!jsonPath.startsWith("$")) {
+            return Optional.empty();
+        }
+
+        var segments = ImmutableList.<String>builder();
+        int position = 1;
+        while (position < jsonPath.length()) {
+            if (jsonPath.charAt(position) == '.') {
+                int end = position + 1;
+                while (end < jsonPath.length() && NAME.matcher(jsonPath.substring(end, end + 1)).matches()) {
+                    end++;
+                }
+                if (end == position + 1) {
+                    return Optional.empty();
+                }
+                segments.add(jsonPath.substring(position + 1, end));
+                position = end;
+            }
+            else if (jsonPath.charAt(position) == '[') {
+                int end = jsonPath.indexOf(']', position);
+                if (end < 0) {
+                    return Optional.empty();
+                }
+                var subscript = jsonPath.substring(position + 1, end);
+                if (INDEX.matcher(subscript).matches()) {
+                    segments.add(String.valueOf(Integer.parseInt(subscript)));
+                }
+                else if (QUOTED_NAME.matcher(subscript).matches()) {
+                    segments.add(subscript.substring(1, subscript.length() - 1));
+                }
+                else {
+                    return Optional.empty();
+                }
+                position = end + 1;
+            }
+            else {
+                return Optional.empty();
+            }
+        }
+
+        var path = segments.build();
+        return path.isEmpty() ? Optional.empty() : Optional.of(path);
+    }
+
+    private static boolean isJsonColumn(KubernetesColumnHandle column)
+    {
+        return (column.name().equals(RESOURCE.name()) && column.type().equals(RESOURCE.type()))
+                || (column.name().equals(METADATA.name()) && column.type().equals(METADATA.type()));
+    }
+}
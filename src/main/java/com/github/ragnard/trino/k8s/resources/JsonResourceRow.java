@@ -0,0 +1,132 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.ragnard.trino.k8s.resources;
+
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import io.kubernetes.client.openapi.models.V1ObjectMeta;
+
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A row backed by the bytes of an object in a LIST response. The
+ * {@code metadata} and {@code resource} columns are copied from byte
+ * ranges of the response, rather than serialized from a parsed tree.
+ */
+public final class JsonResourceRow
+        implements ResourceRow
+{
+    private final Slice json;
+    private final int offset;
+    private final int end;
+    private final int metadataMemberStart;
+    private final int metadataStart;
+    private final int metadataEnd;
+    private final V1ObjectMeta metadata;
+    private final Map<List<String>, Slice> values;
+
+    /**
+     * @param json the response the object is part of
+     * @param offset the offset of the object
+     * @param length the length of the object
+     * @param metadataMemberStart the offset of the {@code "metadata"} key, or -1 if the object has no metadata
+     * @param metadataStart the offset of the metadata value
+     * @param metadataEnd the offset just past the metadata value
+     * @param metadata the decoded metadata
+     * @param values the values that were captured, by path
+     */
+    public JsonResourceRow(Slice json, int offset, int length, int metadataMemberStart, int metadataStart, int metadataEnd, V1ObjectMeta metadata, Map<List<String>, Slice> values)
+    {
+        this.json = requireNonNull(json, "json is null");
+        this.offset = offset;
+        this.end = offset + length;
+        this.metadataMemberStart = metadataMemberStart;
+        this.metadataStart = metadataStart;
+        this.metadataEnd = metadataEnd;
+        this.metadata = metadata == null ? new V1ObjectMeta() : metadata;
+        this.values = requireNonNull(values, "values is null");
+    }
+
+    @Override
+    public V1ObjectMeta metadata()
+    {
+        return metadata;
+    }
+
+    @Override
+    public Slice metadataJson()
+    {
+        if (metadataMemberStart < 0) {
+            return null;
+        }
+        return json.slice(metadataStart, metadataEnd - metadataStart);
+    }
+
+    @Override
+    public Slice resourceJson()
+    {
+        if (metadataMemberStart < 0) {
+            return json.slice(offset, end - offset);
+        }
+
+        // drop the metadata member together with the comma separating it from a neighbour
+        int removeStart = metadataMemberStart;
+        int removeEnd = metadataEnd;
+        int next = skipWhitespace(removeEnd);
+        if (json.getByte(next) == ',') {
+            removeEnd = next + 1;
+        }
+        else {
+            int previous = skipWhitespaceBackwards(removeStart - 1);
+            if (json.getByte(previous) == ',') {
+                removeStart = previous;
+            }
+        }
+
+        var resource = Slices.allocate((end - offset) - (removeEnd - removeStart));
+        resource.setBytes(0, json, offset, removeStart - offset);
+        resource.setBytes(removeStart - offset, json, removeEnd, end - removeEnd);
+        return resource;
+    }
+
+    @Override
+    public Slice valueJson(List<String> path)
+    {
+        return values.get(path);
+    }
+
+    private int skipWhitespace(int position)
+    {
+        while (position < end && isWhitespace(json.getByte(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    private int skipWhitespaceBackwards(int position)
+    {
+        while (position > offset && isWhitespace(json.getByte(position))) {
+            position--;
+        }
+        return position;
+    }
+
+    private static boolean isWhitespace(byte value)
+    {
+        return value == ' ' || value == '\n' || value == '\r' || value == '\t';
+    }
+}
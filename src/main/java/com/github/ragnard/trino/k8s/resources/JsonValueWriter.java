@@ -0,0 +1,262 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.ragnard.trino.k8s.resources;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.slice.Slice;
+import io.trino.spi.TrinoException;
+import io.trino.spi.block.ArrayBlockBuilder;
+import io.trino.spi.block.BlockBuilder;
+import io.trino.spi.block.MapBlockBuilder;
+import io.trino.spi.block.RowBlockBuilder;
+import io.trino.spi.type.ArrayType;
+import io.trino.spi.type.BigintType;
+import io.trino.spi.type.BooleanType;
+import io.trino.spi.type.DoubleType;
+import io.trino.spi.type.MapType;
+import io.trino.spi.type.RowType;
+import io.trino.spi.type.TimestampWithTimeZoneType;
+import io.trino.spi.type.Type;
+import io.trino.spi.type.VarcharType;
+
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
+
+import static com.fasterxml.jackson.core.JsonToken.END_ARRAY;
+import static com.fasterxml.jackson.core.JsonToken.FIELD_NAME;
+import static com.fasterxml.jackson.core.JsonToken.START_ARRAY;
+import static com.fasterxml.jackson.core.JsonToken.START_OBJECT;
+import static com.fasterxml.jackson.core.JsonToken.VALUE_NULL;
+import static com.fasterxml.jackson.core.JsonToken.VALUE_NUMBER_INT;
+import static com.fasterxml.jackson.core.JsonToken.VALUE_STRING;
+import static com.github.ragnard.trino.k8s.KubernetesTypes.writeTimestamp;
+import static io.trino.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
+import static java.lang.Math.toIntExact;
+
+/**
+ * Writes a JSON value to a block of a given type, parsing it straight into
+ * the block builder. Values that do not have the expected JSON type are
+ * written as null, except for VARCHAR, which holds anything but a string
+ * as its JSON text.
+ */
+public final class JsonValueWriter
+{
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private final Type type;
+    // element writer of arrays, value writer of maps, field writers of rows
+    private final List<JsonValueWriter> children;
+    private final Map<String, Integer> fieldIndexes;
+
+    private JsonValueWriter(Type type, List<JsonValueWriter> children, Map<String, Integer> fieldIndexes)
+    {
+        this.type = type;
+        this.children = children;
+        this.fieldIndexes = fieldIndexes;
+    }
+
+    public static JsonValueWriter create(Type type)
+    {
+        return switch (type) {
+            case ArrayType arrayType -> new JsonValueWriter(type, List.of(create(arrayType.getElementType())), Map.of());
+            case MapType mapType -> new JsonValueWriter(type, List.of(create(mapType.getValueType())), Map.of());
+            case RowType rowType -> {
+                var children = ImmutableList.<JsonValueWriter>builder();
+                var fieldIndexes = ImmutableMap.<String, Integer>builder();
+                var fields = rowType.getFields();
+                for (int i = 0; i < fields.size(); i++) {
+                    children.add(create(fields.get(i).getType()));
+                    fieldIndexes.put(fields.get(i).getName().orElseThrow(), i);
+                }
+                yield new JsonValueWriter(type, children.build(), fieldIndexes.buildKeepingLast());
+            }
+            default -> new JsonValueWriter(type, List.of(), Map.of());
+        };
+    }
+
+    /**
+     * Writes a JSON value, appending null if {@code json} is null.
+     */
+    public void write(Slice json, BlockBuilder output)
+    {
+        if (json == null) {
+            output.appendNull();
+            return;
+        }
+
+        try (var parser = JSON_FACTORY.createParser(json.byteArray(), json.byteArrayOffset(), json.length())) {
+            parser.nextToken();
+            write(parser, json, output);
+        }
+        catch (IOException e) {
+            throw new TrinoException(GENERIC_INTERNAL_ERROR, "Invalid JSON value for type %s".formatted(type), e);
+        }
+    }
+
+    private void write(JsonParser parser, Slice json, BlockBuilder output)
+            throws IOException
+    {
+        var token = parser.currentToken();
+        if (token == VALUE_NULL) {
+            output.appendNull();
+            return;
+        }
+
+        switch (type) {
+            case VarcharType varcharType -> {
+                if (token == VALUE_STRING) {
+                    varcharType.writeString(output, parser.getText());
+                }
+                else {
+                    varcharType.writeSlice(output, text(parser, json));
+                }
+            }
+            case BigintType bigintType -> {
+                if (token == VALUE_NUMBER_INT) {
+                    bigintType.writeLong(output, parser.getLongValue());
+                }
+                else {
+                    skip(parser, output);
+                }
+            }
+            case DoubleType doubleType -> {
+                if (token.isNumeric()) {
+                    doubleType.writeDouble(output, parser.getDoubleValue());
+                }
+                else {
+                    skip(parser, output);
+                }
+            }
+            case BooleanType booleanType -> {
+                if (token.isBoolean()) {
+                    booleanType.writeBoolean(output, token == JsonToken.VALUE_TRUE);
+                }
+                else {
+                    skip(parser, output);
+                }
+            }
+            case TimestampWithTimeZoneType timestampType -> {
+                if (token == VALUE_STRING) {
+                    writeTimestamp(output, parseTimestamp(parser.getText()), timestampType.getPrecision());
+                }
+                else {
+                    skip(parser, output);
+                }
+            }
+            case ArrayType _ -> {
+                if (token == START_ARRAY) {
+                    var elementWriter = children.getFirst();
+                    ((ArrayBlockBuilder) output).buildEntry(elementBuilder -> {
+                        while (parser.nextToken() != END_ARRAY) {
+                            elementWriter.write(parser, json, elementBuilder);
+                        }
+                    });
+                }
+                else {
+                    skip(parser, output);
+                }
+            }
+            case MapType _ -> {
+                if (token == START_OBJECT) {
+                    var valueWriter = children.getFirst();
+                    ((MapBlockBuilder) output).buildEntry((keyBuilder, valueBuilder) -> {
+                        while (parser.nextToken() == FIELD_NAME) {
+                            VarcharType.VARCHAR.writeString(keyBuilder, parser.currentName());
+                            parser.nextToken();
+                            valueWriter.write(parser, json, valueBuilder);
+                        }
+                    });
+                }
+                else {
+                    skip(parser, output);
+                }
+            }
+            case RowType _ -> {
+                if (token == START_OBJECT) {
+                    ((RowBlockBuilder) output).buildEntry(fieldBuilders -> writeRow(parser, json, fieldBuilders));
+                }
+                else {
+                    skip(parser, output);
+                }
+            }
+            default -> throw new IllegalStateException("Unsupported type: " + type);
+        }
+    }
+
+    private void writeRow(JsonParser parser, Slice json, List<BlockBuilder> fieldBuilders)
+            throws IOException
+    {
+        var written = new boolean[fieldBuilders.size()];
+        while (parser.nextToken() == FIELD_NAME) {
+            var index = fieldIndexes.get(parser.currentName());
+            parser.nextToken();
+            if (index == null || written[index]) {
+                parser.skipChildren();
+                continue;
+            }
+            children.get(index).write(parser, json, fieldBuilders.get(index));
+            written[index] = true;
+        }
+        for (int i = 0; i < written.length; i++) {
+            if (!written[i]) {
+                fieldBuilders.get(i).appendNull();
+            }
+        }
+    }
+
+    private static Slice text(JsonParser parser, Slice json)
+            throws IOException
+    {
+        int start = offset(parser);
+        int end;
+        if (parser.currentToken().isStructStart()) {
+            parser.skipChildren();
+            end = offset(parser) + 1;
+        }
+        else {
+            parser.finishToken();
+            end = toIntExact(parser.currentLocation().getByteOffset());
+        }
+        return json.slice(start, end - start);
+    }
+
+    private static void skip(JsonParser parser, BlockBuilder output)
+            throws IOException
+    {
+        parser.skipChildren();
+        output.appendNull();
+    }
+
+    private static OffsetDateTime parseTimestamp(String value)
+    {
+        try {
+            return OffsetDateTime.parse(value);
+        }
+        catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static int offset(JsonParser parser)
+    {
+        return toIntExact(parser.currentTokenLocation().getByteOffset());
+    }
+}
@@ -0,0 +1,125 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.ragnard.trino.k8s.resources;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+import java.util.Map;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.joining;
+
+/**
+ * A single requirement of a Kubernetes label selector, for example
+ * {@code app=api}, {@code tier in (web,cache)} or {@code !canary}.
+ */
+public record LabelRequirement(
+        @JsonProperty String key,
+        @JsonProperty Operator operator,
+        @JsonProperty List<String> values)
+{
+    public enum Operator
+    {
+        EQUALS,
+        NOT_EQUALS,
+        IN,
+        NOT_IN,
+        EXISTS,
+        DOES_NOT_EXIST,
+    }
+
+    public LabelRequirement
+    {
+        requireNonNull(key, "key is null");
+        requireNonNull(operator, "operator is null");
+        values = ImmutableList.copyOf(values);
+    }
+
+    public static LabelRequirement equal(String key, String value)
+    {
+        return new LabelRequirement(key, Operator.EQUALS, List.of(value));
+    }
+
+    public static LabelRequirement notEqual(String key, String value)
+    {
+        return new LabelRequirement(key, Operator.NOT_EQUALS, List.of(value));
+    }
+
+    public static LabelRequirement in(String key, List<String> values)
+    {
+        return new LabelRequirement(key, Operator.IN, values);
+    }
+
+    public static LabelRequirement notIn(String key, List<String> values)
+    {
+        return new LabelRequirement(key, Operator.NOT_IN, values);
+    }
+
+    public static LabelRequirement exists(String key)
+    {
+        return new LabelRequirement(key, Operator.EXISTS, List.of());
+    }
+
+    public static LabelRequirement doesNotExist(String key)
+    {
+        return new LabelRequirement(key, Operator.DOES_NOT_EXIST, List.of());
+    }
+
+    public static String toSelector(List<LabelRequirement> requirements)
+    {
+        return requirements.stream()
+                .map(LabelRequirement::toSelector)
+                .collect(joining(","));
+    }
+
+    public static boolean matchesAll(List<LabelRequirement> requirements, Map<String, String> labels)
+    {
+        for (LabelRequirement requirement : requirements) {
+            if (!requirement.matches(labels)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public String toSelector()
+    {
+        return switch (operator) {
+            case EQUALS -> key + "=" + values.getFirst();
+            case NOT_EQUALS -> key + "!=" + values.getFirst();
+            case IN -> key + " in (" + String.join(",", values) + ")";
+            case NOT_IN -> key + " notin (" + String.join(",", values) + ")";
+            case EXISTS -> key;
+            case DOES_NOT_EXIST -> "!" + key;
+        };
+    }
+
+    /**
+     * Evaluates the requirement the way the API server does, for objects
+     * that are filtered locally rather than by a LIST call.
+     */
+    public boolean matches(Map<String, String> labels)
+    {
+        var value = labels == null ? null : labels.get(key);
+
+        return switch (operator) {
+            case EQUALS, IN -> value != null && values.contains(value);
+            case NOT_EQUALS, NOT_IN -> value == null || !values.contains(value);
+            case EXISTS -> value != null;
+            case DOES_NOT_EXIST -> value == null;
+        };
+    }
+}
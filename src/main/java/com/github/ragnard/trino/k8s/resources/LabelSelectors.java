@@ -0,0 +1,262 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.ragnard.trino.k8s.resources;
+
+import com.github.ragnard.trino.k8s.KubernetesColumnHandle;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.Slice;
+import io.kubernetes.client.openapi.models.V1LabelSelector;
+import io.kubernetes.client.openapi.models.V1LabelSelectorRequirement;
+import io.trino.spi.connector.ColumnHandle;
+import io.trino.spi.expression.Call;
+import io.trino.spi.expression.ConnectorExpression;
+import io.trino.spi.expression.Constant;
+import io.trino.spi.expression.Variable;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+import static com.github.ragnard.trino.k8s.resources.ResourceTableColumns.LABELS;
+import static io.trino.spi.expression.StandardFunctions.AND_FUNCTION_NAME;
+import static io.trino.spi.expression.StandardFunctions.ARRAY_CONSTRUCTOR_FUNCTION_NAME;
+import static io.trino.spi.expression.StandardFunctions.EQUAL_OPERATOR_FUNCTION_NAME;
+import static io.trino.spi.expression.StandardFunctions.IN_PREDICATE_FUNCTION_NAME;
+import static io.trino.spi.expression.StandardFunctions.IS_NULL_FUNCTION_NAME;
+import static io.trino.spi.expression.StandardFunctions.NOT_EQUAL_OPERATOR_FUNCTION_NAME;
+import static io.trino.spi.expression.StandardFunctions.NOT_FUNCTION_NAME;
+import static io.trino.spi.type.BooleanType.BOOLEAN;
+
+/**
+ * Translates predicates on the {@code labels} map column into label
+ * selector requirements that can be evaluated by the API server.
+ * <p>
+ * Supported forms, where {@code labels[k]} may also be written
+ * {@code element_at(labels, k)}:
+ * <ul>
+ *     <li>{@code labels[k] = v}, translated to {@code k=v}</li>
+ *     <li>{@code labels[k] IN (v1, v2)}, translated to {@code k in (v1,v2)}</li>
+ *     <li>{@code labels[k] IS NOT NULL}, translated to {@code k}</li>
+ *     <li>{@code labels[k] <> v}, translated to {@code k!=v}</li>
+ *     <li>{@code labels[k] NOT IN (v1, v2)}, translated to {@code k notin (v1,v2)}</li>
+ * </ul>
+ * The API server also returns objects lacking the label for the last two,
+ * so those predicates are still evaluated by Trino as well.
+ */
+public final class LabelSelectors
+{
+    private static final String SUBSCRIPT_FUNCTION_NAME = "$operator$subscript";
+    private static final String ELEMENT_AT_FUNCTION_NAME = "element_at";
+
+    // https://kubernetes.io/docs/concepts/overview/working-with-objects/labels/#syntax-and-character-set
+    private static final Pattern LABEL_NAME = Pattern.compile("([A-Za-z0-9][-A-Za-z0-9_.]*)?[A-Za-z0-9]");
+    private static final Pattern LABEL_PREFIX = Pattern.compile("[a-z0-9]([-a-z0-9.]*[a-z0-9])?");
+    private static final int MAX_NAME_LENGTH = 63;
+    private static final int MAX_PREFIX_LENGTH = 253;
+
+    public record Extraction(List<LabelRequirement> requirements, ConnectorExpression remainingExpression) {}
+
+    private record Translation(LabelRequirement requirement, boolean exact) {}
+
+    private LabelSelectors() {}
+
+    public static Extraction extract(ConnectorExpression expression, Map<String, ColumnHandle> assignments)
+    {
+        var requirements = ImmutableList.<LabelRequirement>builder();
+        var remaining = ImmutableList.<ConnectorExpression>builder();
+
+        for (ConnectorExpression conjunct : extractConjuncts(expression)) {
+            var translation = translate(conjunct, assignments);
+            translation.ifPresent(t -> requirements.add(t.requirement()));
+            if (translation.isEmpty() || !translation.get().exact()) {
+                remaining.add(conjunct);
+            }
+        }
+
+        return new Extraction(requirements.build(), and(remaining.build()));
+    }
+
+    private static Optional<Translation> translate(ConnectorExpression expression, Map<String, ColumnHandle> assignments)
+    {
+        if (!(expression instanceof Call call)) {
+            return Optional.empty();
+        }
+
+        var name = call.getFunctionName();
+        var arguments = call.getArguments();
+
+        if (name.equals(EQUAL_OPERATOR_FUNCTION_NAME) || name.equals(NOT_EQUAL_OPERATOR_FUNCTION_NAME)) {
+            var key = labelKey(arguments.get(0), assignments).or(() -> labelKey(arguments.get(1), assignments));
+            var value = labelValue(arguments.get(1)).or(() -> labelValue(arguments.get(0)));
+            if (key.isEmpty() || value.isEmpty()) {
+                return Optional.empty();
+            }
+            return Optional.of(name.equals(EQUAL_OPERATOR_FUNCTION_NAME)
+                    ? new Translation(LabelRequirement.equal(key.get(), value.get()), true)
+                    : new Translation(LabelRequirement.notEqual(key.get(), value.get()), false));
+        }
+
+        if (name.equals(IN_PREDICATE_FUNCTION_NAME)) {
+            var key = labelKey(arguments.get(0), assignments);
+            var values = labelValues(arguments.get(1));
+            if (key.isEmpty() || values.isEmpty()) {
+                return Optional.empty();
+            }
+            return Optional.of(new Translation(LabelRequirement.in(key.get(), values.get()), true));
+        }
+
+        if (name.equals(NOT_FUNCTION_NAME) && arguments.getFirst() instanceof Call negated) {
+            var negatedArguments = negated.getArguments();
+
+            if (negated.getFunctionName().equals(IS_NULL_FUNCTION_NAME)) {
+                return labelKey(negatedArguments.getFirst(), assignments)
+                        .map(key -> new Translation(LabelRequirement.exists(key), true));
+            }
+
+            if (negated.getFunctionName().equals(IN_PREDICATE_FUNCTION_NAME)) {
+                var key = labelKey(negatedArguments.get(0), assignments);
+                var values = labelValues(negatedArguments.get(1));
+                if (key.isEmpty() || values.isEmpty()) {
+                    return Optional.empty();
+                }
+                return Optional.of(new Translation(LabelRequirement.notIn(key.get(), values.get()), false));
+            }
+        }
+
+        return Optional.empty();
+    }
+
+    private static Optional<String> labelKey(ConnectorExpression expression, Map<String, ColumnHandle> assignments)
+    {
+        if (!(expression instanceof Call call)) {
+            return Optional.empty();
+        }
+
+        var name = call.getFunctionName().getName();
+        if (call.getFunctionName().getCatalogSchema().isPresent() || !(name.equals(SUBSCRIPT_FUNCTION_NAME) || name.equals(ELEMENT_AT_FUNCTION_NAME))) {
+            return Optional.empty();
+        }
+
+        if (!(call.getArguments().get(0) instanceof Variable variable) || !isLabelsColumn(assignments.get(variable.getName()))) {
+            return Optional.empty();
+        }
+
+        return stringConstant(call.getArguments().get(1)).filter(LabelSelectors::isValidKey);
+    }
+
+    private static Optional<String> labelValue(ConnectorExpression expression)
+    {
+        return stringConstant(expression).filter(LabelSelectors::isValidValue);
+    }
+
+    private static Optional<List<String>> labelValues(ConnectorExpression expression)
+    {
+        if (!(expression instanceof Call call) || !call.getFunctionName().equals(ARRAY_CONSTRUCTOR_FUNCTION_NAME)) {
+            return Optional.empty();
+        }
+
+        var values = ImmutableList.<String>builder();
+        for (ConnectorExpression argument : call.getArguments()) {
+            var value = labelValue(argument);
+            if (value.isEmpty()) {
+                return Optional.empty();
+            }
+            values.add(value.get());
+        }
+        return Optional.of(values.build());
+    }
+
+    private static Optional<String> stringConstant(ConnectorExpression expression)
+    {
+        if (expression instanceof Constant constant && constant.getValue() instanceof Slice slice) {
+            return Optional.of(slice.toStringUtf8());
+        }
+        return Optional.empty();
+    }
+
+    private static boolean isLabelsColumn(ColumnHandle columnHandle)
+    {
+        return columnHandle instanceof KubernetesColumnHandle handle
+                && handle.name().equals(LABELS.name())
+                && handle.type().equals(LABELS.type());
+    }
+
+    private static boolean isValidKey(String key)
+    {
+        var slash = key.indexOf('/');
+        if (slash >= 0) {
+            var prefix = key.substring(0, slash);
+            if (prefix.length() > MAX_PREFIX_LENGTH || !LABEL_PREFIX.matcher(prefix).matches()) {
+                return false;
+            }
+            key = key.substring(slash + 1);
+        }
+        return key.length() <= MAX_NAME_LENGTH && LABEL_NAME.matcher(key).matches();
+    }
+
+    private static boolean isValidValue(String value)
+    {
+        return value.isEmpty() || (value.length() <= MAX_NAME_LENGTH && LABEL_NAME.matcher(value).matches());
+    }
+
+    /**
+     * Converts the label selector of a workload, such as a deployment's
+     * {@code spec.selector}, into requirements.
+     */
+    public static List<LabelRequirement> fromLabelSelector(V1LabelSelector selector)
+    {
+        if (selector == null) {
+            return List.of();
+        }
+
+        var requirements = ImmutableList.<LabelRequirement>builder();
+        if (selector.getMatchLabels() != null) {
+            selector.getMatchLabels().forEach((key, value) -> requirements.add(LabelRequirement.equal(key, value)));
+        }
+        if (selector.getMatchExpressions() != null) {
+            for (V1LabelSelectorRequirement expression : selector.getMatchExpressions()) {
+                var key = expression.getKey();
+                var values = expression.getValues() == null ? List.<String>of() : expression.getValues();
+                requirements.add(switch (expression.getOperator()) {
+                    case "In" -> LabelRequirement.in(key, values);
+                    case "NotIn" -> LabelRequirement.notIn(key, values);
+                    case "Exists" -> LabelRequirement.exists(key);
+                    case "DoesNotExist" -> LabelRequirement.doesNotExist(key);
+                    default -> throw new IllegalArgumentException("Unsupported label selector operator: " + expression.getOperator());
+                });
+            }
+        }
+        return requirements.build();
+    }
+
+    static List<ConnectorExpression> extractConjuncts(ConnectorExpression expression)
+    {
+        if (expression instanceof Call call && call.getFunctionName().equals(AND_FUNCTION_NAME)) {
+            return call.getArguments().stream()
+                    .flatMap(argument -> extractConjuncts(argument).stream())
+                    .collect(ImmutableList.toImmutableList());
+        }
+        return List.of(expression);
+    }
+
+    static ConnectorExpression and(List<ConnectorExpression> conjuncts)
+    {
+        return switch (conjuncts.size()) {
+            case 0 -> Constant.TRUE;
+            case 1 -> conjuncts.getFirst();
+            default -> new Call(BOOLEAN, AND_FUNCTION_NAME, conjuncts);
+        };
+    }
+}
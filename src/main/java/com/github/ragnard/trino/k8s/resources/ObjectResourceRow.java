@@ -0,0 +1,172 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.ragnard.trino.k8s.resources;
+
+import com.google.common.primitives.Ints;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import io.airlift.slice.Slice;
+import io.kubernetes.client.openapi.models.V1ObjectMeta;
+import io.kubernetes.client.util.generic.dynamic.DynamicKubernetesObject;
+
+import java.util.List;
+import java.util.Map;
+
+import static io.airlift.slice.Slices.utf8Slice;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A row backed by an object the client has parsed into a tree, as served
+ * from the informer cache or fetched by name. Decoding {@link V1ObjectMeta}
+ * from the tree is expensive, so it is done at most once per object,
+ * however many metadata columns are projected.
+ * <p>
+ * JSON is written the way the API server writes it, compact and with
+ * {@code <}, {@code >} and {@code &} escaped, so that the JSON columns of
+ * an object are the same whether it was listed or came from the client.
+ */
+final class ObjectResourceRow
+        implements ResourceRow
+{
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    private final DynamicKubernetesObject object;
+    private V1ObjectMeta metadata;
+
+    ObjectResourceRow(DynamicKubernetesObject object)
+    {
+        this.object = requireNonNull(object, "object is null");
+    }
+
+    @Override
+    public V1ObjectMeta metadata()
+    {
+        if (metadata == null) {
+            metadata = object.getMetadata();
+        }
+        return metadata;
+    }
+
+    @Override
+    public Slice metadataJson()
+    {
+        var metadata = object.getRaw().get("metadata");
+        return metadata == null ? null : toJson(metadata);
+    }
+
+    @Override
+    public Slice resourceJson()
+    {
+        // a shallow copy is enough to leave out the metadata
+        var resource = new JsonObject();
+        for (Map.Entry<String, JsonElement> member : object.getRaw().entrySet()) {
+            if (!member.getKey().equals("metadata")) {
+                resource.add(member.getKey(), member.getValue());
+            }
+        }
+        return toJson(resource);
+    }
+
+    @Override
+    public Slice valueJson(List<String> path)
+    {
+        JsonElement value = object.getRaw();
+        for (String name : path) {
+            value = switch (value) {
+                case JsonObject members -> members.get(name);
+                case JsonArray elements -> {
+                    var index = Ints.tryParse(name);
+                    yield index == null || index < 0 || index >= elements.size() ? null : elements.get(index);
+                }
+                case null, default -> null;
+            };
+        }
+        return value == null ? null : toJson(value);
+    }
+
+    private static Slice toJson(JsonElement value)
+    {
+        var json = new StringBuilder();
+        appendJson(json, value);
+        return utf8Slice(json.toString());
+    }
+
+    private static void appendJson(StringBuilder json, JsonElement value)
+    {
+        switch (value) {
+            case JsonObject members -> {
+                json.append('{');
+                boolean first = true;
+                for (Map.Entry<String, JsonElement> member : members.entrySet()) {
+                    if (!first) {
+                        json.append(',');
+                    }
+                    first = false;
+                    appendString(json, member.getKey());
+                    json.append(':');
+                    appendJson(json, member.getValue());
+                }
+                json.append('}');
+            }
+            case JsonArray elements -> {
+                json.append('[');
+                for (int i = 0; i < elements.size(); i++) {
+                    if (i > 0) {
+                        json.append(',');
+                    }
+                    appendJson(json, elements.get(i));
+                }
+                json.append(']');
+            }
+            case JsonPrimitive primitive when primitive.isString() -> appendString(json, primitive.getAsString());
+            // numbers keep the text they were parsed from
+            case JsonPrimitive primitive -> json.append(primitive.getAsString());
+            case JsonNull _ -> json.append("null");
+            default -> throw new IllegalArgumentException("Unexpected JSON element: " + value.getClass().getName());
+        }
+    }
+
+    /**
+     * Appends a string escaped as Go's {@code encoding/json} escapes it,
+     * which is what the API server serializes responses with.
+     */
+    private static void appendString(StringBuilder json, String value)
+    {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> json.append("\\\"");
+                case '\\' -> json.append("\\\\");
+                case '\b' -> json.append("\\b");
+                case '\f' -> json.append("\\f");
+                case '\n' -> json.append("\\n");
+                case '\r' -> json.append("\\r");
+                case '\t' -> json.append("\\t");
+                default -> {
+                    if (c < 0x20 || c == '<' || c == '>' || c == '&' || c == '\u2028' || c == '\u2029') {
+                        json.append("\\u").append(HEX_DIGITS[c >> 12]).append(HEX_DIGITS[(c >> 8) & 0xF]).append(HEX_DIGITS[(c >> 4) & 0xF]).append(HEX_DIGITS[c & 0xF]);
+                    }
+                    else {
+                        json.append(c);
+                    }
+                }
+            }
+        }
+        json.append('"');
+    }
+}
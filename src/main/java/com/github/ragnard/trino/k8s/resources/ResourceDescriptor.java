@@ -0,0 +1,77 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.ragnard.trino.k8s.resources;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.SizeOf;
+import io.kubernetes.client.Discovery;
+
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The parts of a discovered API resource the connector needs to list it.
+ * Unlike {@link Discovery.APIResource} it can be serialized, so discovery
+ * results can be persisted and shipped to workers.
+ * <p>
+ * {@code fields} are the typed top-level members of its objects, derived
+ * from the OpenAPI schema of the resource, if it was available.
+ */
+public record ResourceDescriptor(
+        @JsonProperty String group,
+        @JsonProperty String version,
+        @JsonProperty String kind,
+        @JsonProperty String resourcePlural,
+        @JsonProperty boolean namespaced,
+        @JsonProperty List<ResourceField> fields)
+{
+    private static final int INSTANCE_SIZE = SizeOf.instanceSize(ResourceDescriptor.class);
+
+    public ResourceDescriptor
+    {
+        group = group == null ? "" : group;
+        requireNonNull(version, "version is null");
+        requireNonNull(kind, "kind is null");
+        requireNonNull(resourcePlural, "resourcePlural is null");
+        fields = fields == null ? List.of() : ImmutableList.copyOf(fields);
+    }
+
+    public static ResourceDescriptor from(Discovery.APIResource resource)
+    {
+        return new ResourceDescriptor(
+                resource.getGroup(),
+                resource.getPreferredVersion(),
+                resource.getKind(),
+                resource.getResourcePlural(),
+                Boolean.TRUE.equals(resource.getNamespaced()),
+                List.of());
+    }
+
+    public ResourceDescriptor withFields(List<ResourceField> newFields)
+    {
+        return new ResourceDescriptor(group, version, kind, resourcePlural, namespaced, newFields);
+    }
+
+    public long getRetainedSizeInBytes()
+    {
+        return (long) INSTANCE_SIZE
+                + SizeOf.estimatedSizeOf(group)
+                + SizeOf.estimatedSizeOf(version)
+                + SizeOf.estimatedSizeOf(kind)
+                + SizeOf.estimatedSizeOf(resourcePlural)
+                + SizeOf.estimatedSizeOf(fields, ResourceField::getRetainedSizeInBytes);
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.ragnard.trino.k8s.resources;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.airlift.slice.SizeOf;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A named field of a resource, either a top-level member of its objects,
+ * such as {@code spec}, or a field of a row nested within one.
+ */
+public record ResourceField(
+        @JsonProperty String name,
+        @JsonProperty FieldType type)
+{
+    private static final int INSTANCE_SIZE = SizeOf.instanceSize(ResourceField.class);
+
+    public ResourceField
+    {
+        requireNonNull(name, "name is null");
+        requireNonNull(type, "type is null");
+    }
+
+    public long getRetainedSizeInBytes()
+    {
+        return INSTANCE_SIZE
+                + SizeOf.estimatedSizeOf(name)
+                + type.getRetainedSizeInBytes();
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.ragnard.trino.k8s.resources;
+
+import io.airlift.slice.Slice;
+import io.kubernetes.client.openapi.models.V1ObjectMeta;
+import io.kubernetes.client.util.generic.dynamic.DynamicKubernetesObject;
+
+import java.util.List;
+
+/**
+ * A single object being written to a page, either decoded from a LIST
+ * response by the connector or held as a tree by the client.
+ */
+public interface ResourceRow
+{
+    V1ObjectMeta metadata();
+
+    /**
+     * Returns the metadata of the object as JSON, or null if it has none.
+     */
+    Slice metadataJson();
+
+    /**
+     * Returns the object without its metadata as JSON.
+     */
+    Slice resourceJson();
+
+    /**
+     * Returns the value at a path of the object as JSON, or null if there
+     * is none. A path is a list of member names, or of indexes for array
+     * elements, starting with a top-level member such as {@code status}.
+     * Objects decoded from a LIST response only hold the values at the
+     * paths they were decoded with.
+     */
+    Slice valueJson(List<String> path);
+
+    static ResourceRow of(DynamicKubernetesObject object)
+    {
+        return new ObjectResourceRow(object);
+    }
+}
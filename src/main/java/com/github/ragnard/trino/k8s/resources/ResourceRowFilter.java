@@ -0,0 +1,67 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.ragnard.trino.k8s.resources;
+
+import io.trino.spi.connector.ColumnHandle;
+import io.trino.spi.predicate.Domain;
+import io.trino.spi.predicate.TupleDomain;
+
+import static com.github.ragnard.trino.k8s.resources.ResourceTableColumns.NAME;
+import static com.github.ragnard.trino.k8s.resources.ResourceTableColumns.NAMESPACE;
+import static com.github.ragnard.trino.k8s.resources.ResourceTableColumns.UID;
+import static io.airlift.slice.Slices.utf8Slice;
+
+/**
+ * Matches objects against a predicate on the {@code namespace},
+ * {@code name} and {@code uid} columns, before any of their columns are
+ * written.
+ */
+record ResourceRowFilter(Domain namespace, Domain name, Domain uid)
+{
+    static ResourceRowFilter from(TupleDomain<ColumnHandle> predicate)
+    {
+        return new ResourceRowFilter(
+                predicate.getDomain(NAMESPACE.toColumnHandle(), NAMESPACE.type()),
+                predicate.getDomain(NAME.toColumnHandle(), NAME.type()),
+                predicate.getDomain(UID.toColumnHandle(), UID.type()));
+    }
+
+    boolean isAll()
+    {
+        return namespace.isAll() && name.isAll() && uid.isAll();
+    }
+
+    boolean matches(ResourceRow row)
+    {
+        if (isAll()) {
+            return true;
+        }
+
+        var metadata = row.metadata();
+        return includes(namespace, metadata.getNamespace())
+                && includes(name, metadata.getName())
+                && includes(uid, metadata.getUid());
+    }
+
+    private static boolean includes(Domain domain, String value)
+    {
+        if (domain.isAll()) {
+            return true;
+        }
+        if (value == null) {
+            return domain.isNullAllowed();
+        }
+        return domain.includesNullableValue(utf8Slice(value));
+    }
+}
@@ -18,7 +18,6 @@ import com.github.ragnard.trino.k8s.KubernetesTableHandle;
 import com.github.ragnard.trino.k8s.client.KubernetesResources;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
-import io.kubernetes.client.Discovery;
 import io.trino.spi.connector.ColumnHandle;
 import io.trino.spi.connector.ColumnMetadata;
 import io.trino.spi.connector.ConnectorTableMetadata;
@@ -30,31 +29,33 @@ import java.util.stream.Stream;
 import static com.google.common.base.Strings.isNullOrEmpty;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.ImmutableMap.toImmutableMap;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static java.util.Locale.ENGLISH;
 import static java.util.Objects.requireNonNull;
 
 public record ResourceTable(
-        Discovery.APIResource resource,
+        ResourceDescriptor resource,
         SchemaTableName schemaTableName,
         ImmutableMap<String, ResourceTableColumn> columns)
 {
-    public static ResourceTable from(Discovery.APIResource resource)
+    public static ResourceTable from(ResourceDescriptor resource)
     {
         return new ResourceTable(resource, createSchemaTableName(resource), createColumns(resource));
     }
 
-    private static SchemaTableName createSchemaTableName(Discovery.APIResource resource)
+    private static SchemaTableName createSchemaTableName(ResourceDescriptor resource)
     {
-        if (isNullOrEmpty(resource.getGroup())) {
-            return new SchemaTableName(KubernetesResources.RESOURCES_SCHEMA, resource.getResourcePlural());
+        if (isNullOrEmpty(resource.group())) {
+            return new SchemaTableName(KubernetesResources.RESOURCES_SCHEMA, resource.resourcePlural());
         }
         else {
-            return new SchemaTableName(KubernetesResources.RESOURCES_SCHEMA, resource.getGroup() + "." + resource.getResourcePlural());
+            return new SchemaTableName(KubernetesResources.RESOURCES_SCHEMA, resource.group() + "." + resource.resourcePlural());
         }
     }
 
-    private static ImmutableMap<String, ResourceTableColumn> createColumns(Discovery.APIResource resource)
+    private static ImmutableMap<String, ResourceTableColumn> createColumns(ResourceDescriptor resource)
     {
-        return Stream.of(ResourceTableColumns.KIND,
+        var columns = Stream.of(ResourceTableColumns.KIND,
                         ResourceTableColumns.GROUP,
                         ResourceTableColumns.API_VERSION,
                         ResourceTableColumns.NAME,
@@ -74,11 +75,28 @@ public record ResourceTable(
                 .collect(toImmutableMap(
                         ResourceTableColumn::name,
                         c -> c));
+
+        // typed members follow, unless their name is taken by one of the columns above
+        var names = columns.keySet().stream()
+                .map(name -> name.toLowerCase(ENGLISH))
+                .collect(toImmutableSet());
+        var members = resource.fields().stream()
+                .filter(field -> !names.contains(field.name().toLowerCase(ENGLISH)))
+                .map(ResourceTableColumns::member)
+                .collect(toImmutableMap(
+                        ResourceTableColumn::name,
+                        c -> c,
+                        (first, _) -> first));
+
+        return ImmutableMap.<String, ResourceTableColumn>builder()
+                .putAll(columns)
+                .putAll(members)
+                .buildOrThrow();
     }
 
     public KubernetesTableHandle toTableHandle()
     {
-        return new ResourceTableHandle(schemaTableName());
+        return new ResourceTableHandle(schemaTableName(), resource());
     }
 
     public ConnectorTableMetadata getTableMetadata()
@@ -112,11 +130,13 @@ public record ResourceTable(
 
     public ColumnMetadata getColumnMetadata(KubernetesColumnHandle columnHandle)
     {
-        return requireNonNull(columns.get(columnHandle.name())).toColumnMetadata();
+        return requireNonNull(lookupColumn(columnHandle)).toColumnMetadata();
     }
 
     public ResourceTableColumn lookupColumn(KubernetesColumnHandle columnHandle)
     {
-        return this.columns.get(columnHandle.name());
+        return columnHandle.extraction()
+                .map(extraction -> ResourceTableColumns.extraction(columnHandle.name(), columnHandle.type(), extraction))
+                .orElseGet(() -> this.columns.get(columnHandle.name()));
     }
 }
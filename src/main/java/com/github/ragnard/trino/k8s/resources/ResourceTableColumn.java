@@ -14,16 +14,108 @@
 package com.github.ragnard.trino.k8s.resources;
 
 import com.github.ragnard.trino.k8s.KubernetesColumnHandle;
-import io.kubernetes.client.util.generic.dynamic.DynamicKubernetesObject;
+import io.trino.spi.block.BlockBuilder;
 import io.trino.spi.connector.ColumnMetadata;
 import io.trino.spi.type.Type;
 
-import java.util.function.BiFunction;
+import java.util.List;
 
-public record ResourceTableColumn(String name, Type type, ColumnValueFunction value)
+import static com.github.ragnard.trino.k8s.KubernetesTypes.writeString;
+
+public record ResourceTableColumn(String name, Type type, ColumnWriter writer)
 {
-    public interface ColumnValueFunction
-            extends BiFunction<ResourceTable, DynamicKubernetesObject, Object> {}
+    /**
+     * Writes the value of a column for a single object straight into the
+     * block builder of that column, appending null if there is no value.
+     */
+    public interface ColumnWriter
+    {
+        void write(ResourceTable table, ResourceRow row, BlockBuilder output);
+    }
+
+    /**
+     * Writes a value that is the same for every object of a table, such as
+     * its kind. A page holds the value once, as a run-length encoded block.
+     */
+    public interface ConstantColumnWriter
+            extends ColumnWriter
+    {
+        void write(ResourceTable table, BlockBuilder output);
+
+        @Override
+        default void write(ResourceTable table, ResourceRow row, BlockBuilder output)
+        {
+            write(table, output);
+        }
+    }
+
+    /**
+     * Writes a string with few distinct values across the objects of a
+     * table, such as their namespace. A page holds each distinct value once,
+     * as a dictionary block.
+     */
+    public interface DictionaryColumnWriter
+            extends ColumnWriter
+    {
+        String value(ResourceRow row);
+
+        @Override
+        default void write(ResourceTable table, ResourceRow row, BlockBuilder output)
+        {
+            writeString(output, value(row));
+        }
+    }
+
+    /**
+     * Writes a value read from the JSON of the object at a path, see
+     * {@link ResourceRow#valueJson}, so that only that value needs to be
+     * kept when the object is decoded.
+     */
+    public interface JsonColumnWriter
+            extends ColumnWriter
+    {
+        List<String> path();
+    }
+
+    /**
+     * Writes a top-level member of the object, such as its {@code spec},
+     * parsing its JSON into the type of the column.
+     */
+    public record MemberColumnWriter(String member, JsonValueWriter valueWriter)
+            implements JsonColumnWriter
+    {
+        @Override
+        public List<String> path()
+        {
+            return List.of(member);
+        }
+
+        @Override
+        public void write(ResourceTable table, ResourceRow row, BlockBuilder output)
+        {
+            valueWriter.write(row.valueJson(path()), output);
+        }
+    }
+
+    /**
+     * Writes the value of a pushed down {@code json_extract} or
+     * {@code json_extract_scalar} call, see {@link JsonExtraction}.
+     */
+    public record ExtractionColumnWriter(JsonExtraction extraction, Type type)
+            implements JsonColumnWriter
+    {
+        @Override
+        public List<String> path()
+        {
+            return extraction.objectPath();
+        }
+
+        @Override
+        public void write(ResourceTable table, ResourceRow row, BlockBuilder output)
+        {
+            extraction.write(type, row.valueJson(path()), output);
+        }
+    }
 
     public KubernetesColumnHandle toColumnHandle()
     {
@@ -37,8 +129,8 @@ public record ResourceTableColumn(String name, Type type, ColumnValueFunction va
                 .setType(type).build();
     }
 
-    public Object getValue(ResourceTable table, DynamicKubernetesObject object)
+    public void write(ResourceTable table, ResourceRow row, BlockBuilder output)
     {
-        return value.apply(table, object);
+        writer.write(table, row, output);
     }
 }
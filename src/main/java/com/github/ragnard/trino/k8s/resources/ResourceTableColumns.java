@@ -13,72 +13,138 @@
  */
 package com.github.ragnard.trino.k8s.resources;
 
+import com.github.ragnard.trino.k8s.KubernetesColumnHandle;
 import com.github.ragnard.trino.k8s.KubernetesTypes;
-import com.google.gson.JsonElement;
-import io.kubernetes.client.Discovery;
 import io.kubernetes.client.openapi.models.V1ObjectMeta;
+import io.trino.spi.block.BlockBuilder;
+import io.trino.spi.type.ArrayType;
 import io.trino.spi.type.BigintType;
+import io.trino.spi.type.MapType;
+import io.trino.spi.type.RowType;
 import io.trino.spi.type.TimestampWithTimeZoneType;
+import io.trino.spi.type.Type;
 import io.trino.spi.type.VarcharType;
 
-import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
+import java.util.stream.Stream;
 
 import static com.github.ragnard.trino.k8s.KubernetesTypes.STRING_ARRAY;
 import static com.github.ragnard.trino.k8s.KubernetesTypes.STRING_MAP;
+import static com.github.ragnard.trino.k8s.KubernetesTypes.writeSlice;
+import static com.github.ragnard.trino.k8s.KubernetesTypes.writeString;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
 
 public class ResourceTableColumns
 {
-    public static final ResourceTableColumn KIND = new ResourceTableColumn("kind", VarcharType.VARCHAR, resourceMethod(Discovery.APIResource::getKind));
-    public static final ResourceTableColumn GROUP = new ResourceTableColumn("group", VarcharType.VARCHAR, resourceMethod(Discovery.APIResource::getGroup));
-    public static final ResourceTableColumn API_VERSION = new ResourceTableColumn("apiVersion", VarcharType.VARCHAR, resourceMethod(Discovery.APIResource::getPreferredVersion));
+    public static final ResourceTableColumn KIND = new ResourceTableColumn("kind", VarcharType.VARCHAR, resourceMethod(ResourceDescriptor::kind));
+    public static final ResourceTableColumn GROUP = new ResourceTableColumn("group", VarcharType.VARCHAR, resourceMethod(ResourceDescriptor::group));
+    public static final ResourceTableColumn API_VERSION = new ResourceTableColumn("apiVersion", VarcharType.VARCHAR, resourceMethod(ResourceDescriptor::version));
 
     // V1ObjectMeta
-    public static final ResourceTableColumn NAME = new ResourceTableColumn("name", VarcharType.VARCHAR, metadataMethod(V1ObjectMeta::getName));
-    public static final ResourceTableColumn NAMESPACE = new ResourceTableColumn("namespace", VarcharType.VARCHAR, metadataMethod(V1ObjectMeta::getNamespace));
-    public static final ResourceTableColumn LABELS = new ResourceTableColumn("labels", STRING_MAP, metadataMethod(V1ObjectMeta::getLabels, KubernetesTypes::stringMap));
-    public static final ResourceTableColumn ANNOTATIONS = new ResourceTableColumn("annotations", STRING_MAP, metadataMethod(V1ObjectMeta::getAnnotations, KubernetesTypes::stringMap));
-    public static final ResourceTableColumn CLUSTER_NAME = new ResourceTableColumn("clusterName", VarcharType.VARCHAR, metadataMethod(V1ObjectMeta::getClusterName));
-    public static final ResourceTableColumn CREATION_TIMESTAMP = new ResourceTableColumn("creationTimestamp", TimestampWithTimeZoneType.TIMESTAMP_TZ_MICROS, metadataMethod(V1ObjectMeta::getCreationTimestamp, KubernetesTypes::toTimestamp));
-    public static final ResourceTableColumn DELETION_GRACE_PERIOD_SECONDS = new ResourceTableColumn("deletionGracePeriodSeconds", BigintType.BIGINT, metadataMethod(V1ObjectMeta::getDeletionGracePeriodSeconds));
-    public static final ResourceTableColumn DELETION_TIMESTAMP = new ResourceTableColumn("deletionTimestamp", TimestampWithTimeZoneType.TIMESTAMP_TZ_MICROS, metadataMethod(V1ObjectMeta::getDeletionTimestamp, KubernetesTypes::toTimestamp));
-    public static final ResourceTableColumn FINALIZERS = new ResourceTableColumn("finalizers", STRING_ARRAY, metadataMethod(V1ObjectMeta::getFinalizers, KubernetesTypes::stringArray));
-    public static final ResourceTableColumn RESOURCE_VERSION = new ResourceTableColumn("resourceVersion", VarcharType.VARCHAR, metadataMethod(V1ObjectMeta::getResourceVersion));
-    public static final ResourceTableColumn SELF_LINK = new ResourceTableColumn("selfLink", VarcharType.VARCHAR, metadataMethod(V1ObjectMeta::getSelfLink));
-    public static final ResourceTableColumn UID = new ResourceTableColumn("uid", VarcharType.VARCHAR, metadataMethod(V1ObjectMeta::getUid));
+    public static final ResourceTableColumn NAME = new ResourceTableColumn("name", VarcharType.VARCHAR, metadataMethod(V1ObjectMeta::getName, KubernetesTypes::writeString));
+    public static final ResourceTableColumn NAMESPACE = new ResourceTableColumn("namespace", VarcharType.VARCHAR, dictionaryMetadataMethod(V1ObjectMeta::getNamespace));
+    public static final ResourceTableColumn LABELS = new ResourceTableColumn("labels", STRING_MAP, metadataMethod(V1ObjectMeta::getLabels, KubernetesTypes::writeStringMap));
+    public static final ResourceTableColumn ANNOTATIONS = new ResourceTableColumn("annotations", STRING_MAP, metadataMethod(V1ObjectMeta::getAnnotations, KubernetesTypes::writeStringMap));
+    public static final ResourceTableColumn CLUSTER_NAME = new ResourceTableColumn("clusterName", VarcharType.VARCHAR, dictionaryMetadataMethod(V1ObjectMeta::getClusterName));
+    public static final ResourceTableColumn CREATION_TIMESTAMP = new ResourceTableColumn("creationTimestamp", TimestampWithTimeZoneType.TIMESTAMP_TZ_MICROS, metadataMethod(V1ObjectMeta::getCreationTimestamp, KubernetesTypes::writeTimestamp));
+    public static final ResourceTableColumn DELETION_GRACE_PERIOD_SECONDS = new ResourceTableColumn("deletionGracePeriodSeconds", BigintType.BIGINT, metadataMethod(V1ObjectMeta::getDeletionGracePeriodSeconds, ResourceTableColumns::writeBigint));
+    public static final ResourceTableColumn DELETION_TIMESTAMP = new ResourceTableColumn("deletionTimestamp", TimestampWithTimeZoneType.TIMESTAMP_TZ_MICROS, metadataMethod(V1ObjectMeta::getDeletionTimestamp, KubernetesTypes::writeTimestamp));
+    public static final ResourceTableColumn FINALIZERS = new ResourceTableColumn("finalizers", STRING_ARRAY, metadataMethod(V1ObjectMeta::getFinalizers, KubernetesTypes::writeStringArray));
+    public static final ResourceTableColumn RESOURCE_VERSION = new ResourceTableColumn("resourceVersion", VarcharType.VARCHAR, metadataMethod(V1ObjectMeta::getResourceVersion, KubernetesTypes::writeString));
+    public static final ResourceTableColumn SELF_LINK = new ResourceTableColumn("selfLink", VarcharType.VARCHAR, metadataMethod(V1ObjectMeta::getSelfLink, KubernetesTypes::writeString));
+    public static final ResourceTableColumn UID = new ResourceTableColumn("uid", VarcharType.VARCHAR, metadataMethod(V1ObjectMeta::getUid, KubernetesTypes::writeString));
 
     //
     public static final ResourceTableColumn METADATA = new ResourceTableColumn("metadata", VarcharType.VARCHAR, metadata());
     public static final ResourceTableColumn RESOURCE = new ResourceTableColumn("resource", VarcharType.VARCHAR, resource());
 
+    // Output of a pushed down count(*), see ResourceTableHandle.applyAggregation
+    public static final KubernetesColumnHandle COUNT_ALL = new KubernetesColumnHandle("$count", BigintType.BIGINT);
+
+    // Columns that can be populated from a PartialObjectMetadata, without the rest of the object
+    private static final Set<String> METADATA_COLUMNS = Stream.of(
+                    KIND, GROUP, API_VERSION,
+                    NAME, NAMESPACE, LABELS, ANNOTATIONS, CLUSTER_NAME, CREATION_TIMESTAMP, DELETION_GRACE_PERIOD_SECONDS,
+                    DELETION_TIMESTAMP, FINALIZERS, RESOURCE_VERSION, SELF_LINK, UID,
+                    METADATA)
+            .map(ResourceTableColumn::name)
+            .collect(toImmutableSet());
+
+    // Columns that are expensive to write, and are only written for pages the engine actually reads them from,
+    // along with every column of a nested type
+    private static final Set<String> LAZY_COLUMNS = Stream.of(METADATA, RESOURCE)
+            .map(ResourceTableColumn::name)
+            .collect(toImmutableSet());
+
     private ResourceTableColumns() {}
 
-    public static ResourceTableColumn.ColumnValueFunction resourceMethod(Function<Discovery.APIResource, Object> fn)
+    public static boolean isMetadataColumn(ResourceTableColumn column)
+    {
+        return METADATA_COLUMNS.contains(column.name())
+                || (column.writer() instanceof ResourceTableColumn.ExtractionColumnWriter writer && writer.extraction().column().equals(METADATA.name()));
+    }
+
+    public static boolean isLazyColumn(ResourceTableColumn column)
     {
-        return (table, _) -> fn.apply(table.resource());
+        return LAZY_COLUMNS.contains(column.name())
+                || column.type() instanceof ArrayType
+                || column.type() instanceof MapType
+                || column.type() instanceof RowType;
     }
 
-    public static ResourceTableColumn.ColumnValueFunction metadataMethod(Function<V1ObjectMeta, Object> fn)
+    /**
+     * Returns the typed column of a top-level member of the objects of a
+     * resource, such as its {@code spec} or {@code status}.
+     */
+    public static ResourceTableColumn member(ResourceField field)
     {
-        return (_, object) -> fn.apply(object.getMetadata());
+        var type = field.type().toType();
+        return new ResourceTableColumn(field.name(), type, new ResourceTableColumn.MemberColumnWriter(field.name(), JsonValueWriter.create(type)));
     }
 
-    public static <T, U> ResourceTableColumn.ColumnValueFunction metadataMethod(Function<V1ObjectMeta, T> fn, Function<T, U> convert)
+    /**
+     * Returns the column a {@code json_extract} or {@code json_extract_scalar}
+     * call is pushed down as.
+     */
+    public static ResourceTableColumn extraction(String name, Type type, JsonExtraction extraction)
     {
-        return (_, object) -> Optional.ofNullable(fn.apply(object.getMetadata())).map(convert::apply).orElse(null);
+        return new ResourceTableColumn(name, type, new ResourceTableColumn.ExtractionColumnWriter(extraction, type));
     }
 
-    public static ResourceTableColumn.ColumnValueFunction metadata()
+    public static ResourceTableColumn.ConstantColumnWriter resourceMethod(Function<ResourceDescriptor, String> fn)
     {
-        return (_, object) -> Optional.ofNullable(object.getRaw().get("metadata")).map(JsonElement::toString).orElse(null);
+        return (table, output) -> writeString(output, fn.apply(table.resource()));
     }
 
-    public static ResourceTableColumn.ColumnValueFunction resource()
+    public static <T> ResourceTableColumn.ColumnWriter metadataMethod(Function<V1ObjectMeta, T> fn, BiConsumer<BlockBuilder, T> write)
     {
-        return (_, object) -> {
-            var copy = object.getRaw().deepCopy();
-            copy.remove("metadata");
-            return copy.toString();
-        };
+        return (_, row, output) -> write.accept(output, fn.apply(row.metadata()));
+    }
+
+    public static ResourceTableColumn.DictionaryColumnWriter dictionaryMetadataMethod(Function<V1ObjectMeta, String> fn)
+    {
+        return row -> fn.apply(row.metadata());
+    }
+
+    public static ResourceTableColumn.ColumnWriter metadata()
+    {
+        return (_, row, output) -> writeSlice(output, row.metadataJson());
+    }
+
+    public static ResourceTableColumn.ColumnWriter resource()
+    {
+        return (_, row, output) -> writeSlice(output, row.resourceJson());
+    }
+
+    private static void writeBigint(BlockBuilder output, Long value)
+    {
+        if (value == null) {
+            output.appendNull();
+            return;
+        }
+
+        BigintType.BIGINT.writeLong(output, value);
     }
 }
@@ -16,51 +16,221 @@ package com.github.ragnard.trino.k8s.resources;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.github.ragnard.trino.k8s.KubernetesColumnHandle;
 import com.github.ragnard.trino.k8s.KubernetesTableHandle;
+import com.google.common.collect.ImmutableList;
 import io.airlift.slice.SizeOf;
+import io.trino.spi.connector.AggregateFunction;
+import io.trino.spi.connector.AggregationApplicationResult;
+import io.trino.spi.connector.Assignment;
 import io.trino.spi.connector.ColumnHandle;
 import io.trino.spi.connector.ConnectorTableHandle;
 import io.trino.spi.connector.Constraint;
 import io.trino.spi.connector.ConstraintApplicationResult;
+import io.trino.spi.connector.ProjectionApplicationResult;
 import io.trino.spi.connector.SchemaTableName;
+import io.trino.spi.expression.Call;
+import io.trino.spi.expression.ConnectorExpression;
+import io.trino.spi.expression.FieldDereference;
+import io.trino.spi.expression.Variable;
 import io.trino.spi.predicate.Domain;
 import io.trino.spi.predicate.TupleDomain;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalInt;
+import java.util.stream.Stream;
 
+import static com.github.ragnard.trino.k8s.resources.ResourceTableColumns.NAME;
 import static com.github.ragnard.trino.k8s.resources.ResourceTableColumns.NAMESPACE;
+import static io.trino.spi.type.BigintType.BIGINT;
+import static java.util.Objects.requireNonNull;
 
+/**
+ * Carries the {@link ResourceDescriptor} of the table, so that workers can
+ * list it without running discovery themselves.
+ */
 public record ResourceTableHandle(
         @JsonProperty SchemaTableName schemaTableName,
+        @JsonProperty ResourceDescriptor resource,
         @JsonProperty TupleDomain<ColumnHandle> constraint,
-        @JsonProperty OptionalInt limit)
+        @JsonProperty List<LabelRequirement> labelSelector,
+        @JsonProperty List<FieldRequirement> fieldSelector,
+        @JsonProperty OptionalInt limit,
+        @JsonProperty boolean countOnly)
         implements KubernetesTableHandle
 {
     private static final int INSTANCE_SIZE = SizeOf.instanceSize(KubernetesTableHandle.class);
+    private static final int MAX_DYNAMIC_FILTER_VALUES = 100;
+
+    public ResourceTableHandle
+    {
+        requireNonNull(resource, "resource is null");
+        labelSelector = ImmutableList.copyOf(labelSelector);
+        fieldSelector = ImmutableList.copyOf(fieldSelector);
+    }
 
-    public ResourceTableHandle(SchemaTableName schemaTableName)
+    public ResourceTableHandle(SchemaTableName schemaTableName, ResourceDescriptor resource)
     {
-        this(schemaTableName, TupleDomain.all(), OptionalInt.empty());
+        this(schemaTableName, resource, TupleDomain.all(), List.of(), List.of(), OptionalInt.empty(), false);
     }
 
     public KubernetesTableHandle withConstraint(TupleDomain<ColumnHandle> newConstraint)
     {
-        return new ResourceTableHandle(schemaTableName, newConstraint, limit);
+        return new ResourceTableHandle(schemaTableName, resource, newConstraint, labelSelector, fieldSelector, limit, countOnly);
     }
 
     public KubernetesTableHandle withLimit(int newLimit)
     {
-        return new ResourceTableHandle(schemaTableName, constraint, OptionalInt.of(newLimit));
+        return new ResourceTableHandle(schemaTableName, resource, constraint, labelSelector, fieldSelector, OptionalInt.of(newLimit), countOnly);
+    }
+
+    /**
+     * Narrows the handle with a dynamic filter, for the namespaces and names
+     * it lists. Only small discrete sets are used, as each value becomes a
+     * split or a GET request; anything else is left to the page source,
+     * which skips objects that do not match the dynamic filter.
+     */
+    public ResourceTableHandle withDynamicFilter(TupleDomain<ColumnHandle> dynamicFilter)
+    {
+        if (countOnly || limit.isPresent()) {
+            // more namespaces would mean more splits, and the limit was accepted as guaranteed per split
+            return this;
+        }
+
+        var usable = dynamicFilter.filter((column, domain) -> {
+            var columnHandle = (KubernetesColumnHandle) column;
+            var isNamespaceOrName = (columnHandle.name().equals(NAMESPACE.name()) && columnHandle.type().equals(NAMESPACE.type()))
+                    || (columnHandle.name().equals(NAME.name()) && columnHandle.type().equals(NAME.type()));
+            return isNamespaceOrName && isDiscreteSet(domain) && domain.getValues().getDiscreteSet().size() <= MAX_DYNAMIC_FILTER_VALUES;
+        });
+        if (usable.isAll()) {
+            return this;
+        }
+
+        return new ResourceTableHandle(schemaTableName, resource, constraint.intersect(usable), labelSelector, fieldSelector, limit, countOnly);
+    }
+
+    /**
+     * Pushes down a global {@code count(*)}, after which the table produces
+     * a single row with the number of matching objects in
+     * {@link ResourceTableColumns#COUNT_ALL}.
+     */
+    @Override
+    public Optional<AggregationApplicationResult<ConnectorTableHandle>> applyAggregation(
+            List<AggregateFunction> aggregates,
+            Map<String, ColumnHandle> assignments,
+            List<List<ColumnHandle>> groupingSets)
+    {
+        if (countOnly || limit.isPresent() || !groupingSets.equals(List.of(List.of())) || aggregates.size() != 1) {
+            return Optional.empty();
+        }
+
+        var aggregate = aggregates.getFirst();
+        var countAll = aggregate.getFunctionName().equals("count")
+                && aggregate.getArguments().isEmpty()
+                && !aggregate.isDistinct()
+                && aggregate.getFilter().isEmpty()
+                && aggregate.getSortItems().isEmpty()
+                && aggregate.getOutputType().equals(BIGINT);
+        if (!countAll) {
+            return Optional.empty();
+        }
+
+        var column = ResourceTableColumns.COUNT_ALL;
+        var newHandle = new ResourceTableHandle(schemaTableName, resource, constraint, labelSelector, fieldSelector, limit, true);
+
+        return Optional.of(new AggregationApplicationResult<>(
+                newHandle,
+                List.of(new Variable(column.name(), column.type())),
+                List.of(new Assignment(column.name(), column, column.type())),
+                Map.of(),
+                false));
+    }
+
+    /**
+     * Pushes down {@code json_extract} and {@code json_extract_scalar} calls
+     * with constant paths on the {@code resource} and {@code metadata}
+     * columns, see {@link JsonExtraction}. The handle is unchanged, as the
+     * calls are carried by the column handles they are replaced with.
+     */
+    @Override
+    public Optional<ProjectionApplicationResult<ConnectorTableHandle>> applyProjection(
+            List<ConnectorExpression> projections,
+            Map<String, ColumnHandle> assignments)
+    {
+        if (countOnly) {
+            return Optional.empty();
+        }
+
+        var extractions = new LinkedHashMap<String, KubernetesColumnHandle>();
+        var newProjections = projections.stream()
+                .map(projection -> replaceExtractions(projection, assignments, extractions))
+                .collect(ImmutableList.toImmutableList());
+        if (extractions.isEmpty()) {
+            return Optional.empty();
+        }
+
+        var newAssignments = new LinkedHashMap<String, Assignment>();
+        for (ConnectorExpression projection : newProjections) {
+            for (Variable variable : variables(projection)) {
+                var column = (KubernetesColumnHandle) (extractions.containsKey(variable.getName())
+                        ? extractions.get(variable.getName())
+                        : assignments.get(variable.getName()));
+                newAssignments.putIfAbsent(variable.getName(), new Assignment(variable.getName(), column, column.type()));
+            }
+        }
+
+        return Optional.of(new ProjectionApplicationResult<>(this, newProjections, ImmutableList.copyOf(newAssignments.values()), false));
+    }
+
+    private static ConnectorExpression replaceExtractions(ConnectorExpression expression, Map<String, ColumnHandle> assignments, Map<String, KubernetesColumnHandle> extractions)
+    {
+        var extraction = JsonExtraction.from(expression, assignments);
+        if (extraction.isPresent()) {
+            var name = extraction.get().columnName();
+            extractions.putIfAbsent(name, new KubernetesColumnHandle(name, expression.getType(), extraction));
+            return new Variable(name, expression.getType());
+        }
+
+        return switch (expression) {
+            case Call call -> new Call(
+                    call.getType(),
+                    call.getFunctionName(),
+                    call.getArguments().stream()
+                            .map(argument -> replaceExtractions(argument, assignments, extractions))
+                            .collect(ImmutableList.toImmutableList()));
+            case FieldDereference dereference -> new FieldDereference(
+                    dereference.getType(),
+                    replaceExtractions(dereference.getTarget(), assignments, extractions),
+                    dereference.getField());
+            default -> expression;
+        };
+    }
+
+    private static List<Variable> variables(ConnectorExpression expression)
+    {
+        if (expression instanceof Variable variable) {
+            return List.of(variable);
+        }
+        return expression.getChildren().stream()
+                .flatMap(child -> variables(child).stream())
+                .collect(ImmutableList.toImmutableList());
     }
 
     @Override
     public Optional<ConstraintApplicationResult<ConnectorTableHandle>> applyFilter(Constraint newConstraint)
     {
+        if (countOnly) {
+            return Optional.empty();
+        }
+
         TupleDomain<ColumnHandle> oldDomain = constraint();
         TupleDomain<ColumnHandle> newDomain = oldDomain.intersect(newConstraint.getSummary());
         TupleDomain<ColumnHandle> remainingFilter;
+        var domainFieldSelector = new ArrayList<FieldRequirement>();
         if (newDomain.isNone()) {
             remainingFilter = TupleDomain.all();
         }
@@ -75,10 +245,16 @@ public record ResourceTableHandle(
                 var domain = entry.getValue();
                 var columnType = columnHandle.type();
 
-                if (columnHandle.name().equals(NAMESPACE.name()) && columnType.equals(NAMESPACE.type())) {
+                if (columnHandle.name().equals(NAMESPACE.name()) && columnType.equals(NAMESPACE.type()) && isDiscreteSet(domain)) {
+                    supported.put(columnHandle, domain);
+                }
+                else if (columnHandle.name().equals(NAME.name()) && columnType.equals(NAME.type()) && isDiscreteSet(domain)) {
                     supported.put(columnHandle, domain);
                 }
                 else {
+                    FieldSelectors.fromDomain(schemaTableName.getTableName(), columnHandle, domain)
+                            .filter(requirement -> !fieldSelector.contains(requirement))
+                            .ifPresent(domainFieldSelector::add);
                     unsupported.put(columnHandle, domain);
                 }
             }
@@ -86,19 +262,45 @@ public record ResourceTableHandle(
             remainingFilter = TupleDomain.withColumnDomains(unsupported);
         }
 
-        if (oldDomain.equals(newDomain)) {
+        var labels = LabelSelectors.extract(newConstraint.getExpression(), newConstraint.getAssignments());
+        var newLabelSelector = labels.requirements().stream()
+                .filter(requirement -> !labelSelector.contains(requirement))
+                .collect(ImmutableList.toImmutableList());
+
+        var fields = FieldSelectors.extract(schemaTableName.getTableName(), labels.remainingExpression(), newConstraint.getAssignments());
+        var newFieldSelector = Stream.concat(domainFieldSelector.stream(), fields.requirements().stream())
+                .filter(requirement -> !fieldSelector.contains(requirement))
+                .distinct()
+                .collect(ImmutableList.toImmutableList());
+
+        if (oldDomain.equals(newDomain) && newLabelSelector.isEmpty() && newFieldSelector.isEmpty()) {
             return Optional.empty();
         }
 
-        var newHandle = this.withConstraint(newDomain);
+        var newHandle = new ResourceTableHandle(
+                schemaTableName,
+                resource,
+                newDomain,
+                ImmutableList.<LabelRequirement>builder().addAll(labelSelector).addAll(newLabelSelector).build(),
+                ImmutableList.<FieldRequirement>builder().addAll(fieldSelector).addAll(newFieldSelector).build(),
+                limit,
+                countOnly);
 
-        return Optional.of(new ConstraintApplicationResult<>(newHandle, remainingFilter, newConstraint.getExpression(), false));
+        return Optional.of(new ConstraintApplicationResult<>(newHandle, remainingFilter, fields.remainingExpression(), false));
+    }
+
+    // a discrete set of namespaces is listed with one request per namespace, and a discrete
+    // set of names is fetched with one GET per name, see KubernetesResources
+    private static boolean isDiscreteSet(Domain domain)
+    {
+        return !domain.isNullAllowed() && domain.getValues().isDiscreteSet();
     }
 
     public long getRetainedSizeInBytes()
     {
         return (long) INSTANCE_SIZE
                 + schemaTableName.getRetainedSizeInBytes()
+                + resource.getRetainedSizeInBytes()
                 + constraint.getRetainedSizeInBytes(column -> ((KubernetesColumnHandle) column).getRetainedSizeInBytes());
     }
 }
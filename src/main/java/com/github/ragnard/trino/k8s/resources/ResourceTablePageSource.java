@@ -0,0 +1,202 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.ragnard.trino.k8s.resources;
+
+import com.google.common.collect.ImmutableList;
+import io.trino.spi.Page;
+import io.trino.spi.block.Block;
+import io.trino.spi.block.BlockBuilder;
+import io.trino.spi.block.DictionaryBlock;
+import io.trino.spi.block.LazyBlock;
+import io.trino.spi.block.RunLengthEncodedBlock;
+import io.trino.spi.connector.ConnectorPageSource;
+import io.trino.spi.connector.DynamicFilter;
+import io.trino.spi.connector.SourcePage;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.OptionalLong;
+
+import static com.github.ragnard.trino.k8s.KubernetesTypes.writeString;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Produces one {@link SourcePage} per batch of objects, so memory is
+ * bounded by the size of a batch rather than the size of the whole table.
+ * Each column writes its values directly into the block builder of its
+ * channel.
+ * <p>
+ * Columns that are constant across a table are written once per page, as a
+ * {@link RunLengthEncodedBlock}, and strings with few distinct values are
+ * written once per distinct value, as a {@link DictionaryBlock}. The JSON
+ * and map columns are produced as {@link LazyBlock}s, which hold on to the
+ * objects of the page and are only written if the engine loads them, for
+ * example after a filter on other columns leaves some rows.
+ * <p>
+ * Objects that do not match the current dynamic filter on namespace, name
+ * or uid are skipped before any of their columns are written.
+ */
+public class ResourceTablePageSource
+        implements ConnectorPageSource
+{
+    private final ResourceTable table;
+    private final List<ResourceTableColumn> columns;
+    private final Iterator<List<ResourceRow>> batches;
+    private final DynamicFilter dynamicFilter;
+    private final BlockBuilder[] blockBuilders;
+
+    private long completedPositions;
+    private long readTimeNanos;
+    private boolean finished;
+
+    public ResourceTablePageSource(ResourceTable table, List<ResourceTableColumn> columns, Iterator<List<ResourceRow>> batches, DynamicFilter dynamicFilter)
+    {
+        this.table = requireNonNull(table, "table is null");
+        this.columns = ImmutableList.copyOf(columns);
+        this.batches = requireNonNull(batches, "batches is null");
+        this.dynamicFilter = requireNonNull(dynamicFilter, "dynamicFilter is null");
+        this.blockBuilders = new BlockBuilder[columns.size()];
+        for (int i = 0; i < blockBuilders.length; i++) {
+            blockBuilders[i] = columns.get(i).type().createBlockBuilder(null, 0);
+        }
+    }
+
+    @Override
+    public SourcePage getNextSourcePage()
+    {
+        if (finished) {
+            return null;
+        }
+
+        long start = System.nanoTime();
+        if (!batches.hasNext()) {
+            finished = true;
+            return null;
+        }
+        var batch = batches.next();
+        readTimeNanos += System.nanoTime() - start;
+
+        var filter = ResourceRowFilter.from(dynamicFilter.getCurrentPredicate());
+        var rows = filter.isAll() ? batch : batch.stream().filter(filter::matches).collect(toImmutableList());
+
+        var blocks = new Block[columns.size()];
+        for (int i = 0; i < blocks.length; i++) {
+            blocks[i] = buildBlock(i, rows);
+        }
+
+        var page = new Page(rows.size(), blocks);
+        completedPositions += page.getPositionCount();
+
+        return SourcePage.create(page);
+    }
+
+    private Block buildBlock(int channel, List<ResourceRow> rows)
+    {
+        var column = columns.get(channel);
+        if (ResourceTableColumns.isLazyColumn(column)) {
+            return new LazyBlock(rows.size(), () -> writeBlock(column.writer(), rows, column.type().createBlockBuilder(null, rows.size())));
+        }
+
+        var blockBuilder = blockBuilders[channel];
+        var block = switch (column.writer()) {
+            case ResourceTableColumn.ConstantColumnWriter writer -> {
+                writer.write(table, blockBuilder);
+                yield RunLengthEncodedBlock.create(blockBuilder.build(), rows.size());
+            }
+            case ResourceTableColumn.DictionaryColumnWriter writer -> buildDictionaryBlock(writer, rows, blockBuilder);
+            case ResourceTableColumn.ColumnWriter writer -> writeBlock(writer, rows, blockBuilder);
+        };
+        blockBuilders[channel] = blockBuilder.newBlockBuilderLike(null);
+        return block;
+    }
+
+    private Block writeBlock(ResourceTableColumn.ColumnWriter writer, List<ResourceRow> rows, BlockBuilder blockBuilder)
+    {
+        for (ResourceRow row : rows) {
+            writer.write(table, row, blockBuilder);
+        }
+        return blockBuilder.build();
+    }
+
+    private static Block buildDictionaryBlock(ResourceTableColumn.DictionaryColumnWriter writer, List<ResourceRow> rows, BlockBuilder dictionaryBuilder)
+    {
+        var ids = new int[rows.size()];
+        var dictionaryIds = new HashMap<String, Integer>();
+        int nullId = -1;
+        for (int position = 0; position < ids.length; position++) {
+            var value = writer.value(rows.get(position));
+            if (value == null) {
+                if (nullId < 0) {
+                    nullId = dictionaryBuilder.getPositionCount();
+                    dictionaryBuilder.appendNull();
+                }
+                ids[position] = nullId;
+                continue;
+            }
+            ids[position] = dictionaryIds.computeIfAbsent(value, _ -> {
+                writeString(dictionaryBuilder, value);
+                return dictionaryBuilder.getPositionCount() - 1;
+            });
+        }
+
+        var dictionary = dictionaryBuilder.build();
+        if (dictionary.getPositionCount() == ids.length) {
+            // every value is distinct and ids are in order, so the dictionary is the block
+            return dictionary;
+        }
+        return DictionaryBlock.create(ids.length, dictionary, ids);
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return finished;
+    }
+
+    @Override
+    public long getCompletedBytes()
+    {
+        return 0;
+    }
+
+    @Override
+    public OptionalLong getCompletedPositions()
+    {
+        return OptionalLong.of(completedPositions);
+    }
+
+    @Override
+    public long getReadTimeNanos()
+    {
+        return readTimeNanos;
+    }
+
+    @Override
+    public long getMemoryUsage()
+    {
+        long memoryUsage = 0;
+        for (BlockBuilder blockBuilder : blockBuilders) {
+            memoryUsage += blockBuilder.getRetainedSizeInBytes();
+        }
+        return memoryUsage;
+    }
+
+    @Override
+    public void close()
+    {
+        finished = true;
+    }
+}
@@ -18,15 +18,32 @@ import com.fasterxml.jackson.annotation.JsonProperty;
 import com.github.ragnard.trino.k8s.KubernetesSplit;
 import io.airlift.slice.SizeOf;
 
+import java.util.Optional;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Lists the objects of a table in a single namespace, or across all
+ * namespaces if {@code namespace} is empty.
+ */
 public record ResourceTableSplit(
-        @JsonProperty("tableHandle") ResourceTableHandle tableHandle)
+        @JsonProperty("tableHandle") ResourceTableHandle tableHandle,
+        @JsonProperty("namespace") Optional<String> namespace)
         implements KubernetesSplit
 {
     private static final int INSTANCE_SIZE = SizeOf.instanceSize(ResourceTableSplit.class);
 
+    public ResourceTableSplit
+    {
+        requireNonNull(tableHandle, "tableHandle is null");
+        requireNonNull(namespace, "namespace is null");
+    }
+
     @Override
     public long getRetainedSizeInBytes()
     {
-        return (long) INSTANCE_SIZE + tableHandle.getRetainedSizeInBytes();
+        return (long) INSTANCE_SIZE
+                + tableHandle.getRetainedSizeInBytes()
+                + SizeOf.sizeOf(namespace, SizeOf::estimatedSizeOf);
     }
 }
@@ -0,0 +1,84 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.ragnard.trino.k8s.resources;
+
+import com.google.common.collect.ImmutableList;
+import io.airlift.units.Duration;
+import io.trino.spi.connector.ColumnHandle;
+import io.trino.spi.connector.ConnectorSplit;
+import io.trino.spi.connector.ConnectorSplitSource;
+import io.trino.spi.connector.DynamicFilter;
+import io.trino.spi.predicate.TupleDomain;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.CompletableFuture.completedFuture;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Creates the splits of a resource table once the dynamic filters of the
+ * scan have been collected, or a bounded wait for them has passed, so that
+ * they can narrow which namespaces and names are listed.
+ */
+public class ResourceTableSplitSource
+        implements ConnectorSplitSource
+{
+    private static final ConnectorSplitBatch EMPTY_BATCH = new ConnectorSplitBatch(List.of(), false);
+
+    private final DynamicFilter dynamicFilter;
+    private final Function<TupleDomain<ColumnHandle>, List<ResourceTableSplit>> splitFactory;
+    private final long waitDeadlineNanos;
+
+    private Iterator<ResourceTableSplit> splits;
+
+    public ResourceTableSplitSource(DynamicFilter dynamicFilter, Duration waitTimeout, Function<TupleDomain<ColumnHandle>, List<ResourceTableSplit>> splitFactory)
+    {
+        this.dynamicFilter = requireNonNull(dynamicFilter, "dynamicFilter is null");
+        this.splitFactory = requireNonNull(splitFactory, "splitFactory is null");
+        this.waitDeadlineNanos = System.nanoTime() + waitTimeout.roundTo(NANOSECONDS);
+    }
+
+    @Override
+    public CompletableFuture<ConnectorSplitBatch> getNextBatch(int maxSize)
+    {
+        if (splits == null) {
+            long remainingNanos = waitDeadlineNanos - System.nanoTime();
+            if (dynamicFilter.isAwaitable() && remainingNanos > 0) {
+                return dynamicFilter.isBlocked()
+                        .thenApply(_ -> EMPTY_BATCH)
+                        .completeOnTimeout(EMPTY_BATCH, remainingNanos, NANOSECONDS);
+            }
+            splits = splitFactory.apply(dynamicFilter.getCurrentPredicate()).iterator();
+        }
+
+        var batch = ImmutableList.<ConnectorSplit>builder();
+        for (int i = 0; i < maxSize && splits.hasNext(); i++) {
+            batch.add(splits.next());
+        }
+        return completedFuture(new ConnectorSplitBatch(batch.build(), !splits.hasNext()));
+    }
+
+    @Override
+    public boolean isFinished()
+    {
+        return splits != null && !splits.hasNext();
+    }
+
+    @Override
+    public void close() {}
+}
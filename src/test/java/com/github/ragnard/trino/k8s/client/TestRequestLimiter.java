@@ -0,0 +1,85 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.ragnard.trino.k8s.client;
+
+import io.airlift.units.Duration;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+final class TestRequestLimiter
+{
+    private final OkHttpClient client = new OkHttpClient.Builder()
+            .addInterceptor(new RequestLimiter(1, new Duration(100, MILLISECONDS)))
+            .addInterceptor(chain -> new Response.Builder()
+                    .request(chain.request())
+                    .protocol(Protocol.HTTP_1_1)
+                    .code(200)
+                    .message("OK")
+                    .body(ResponseBody.create("{}", MediaType.get("application/json")))
+                    .build())
+            .build();
+
+    @Test
+    void testWaitTimeout()
+            throws IOException
+    {
+        try (var held = execute("http://kubernetes.test/api/v1/pods")) {
+            // an open response holds the only permit
+            assertThatThrownBy(() -> execute("http://kubernetes.test/api/v1/pods"))
+                    .isInstanceOf(InterruptedIOException.class)
+                    .hasMessage("Timed out waiting for one of 1 concurrent requests to kubernetes.test");
+            // permits are per host
+            execute("http://other.test/api/v1/pods").close();
+        }
+    }
+
+    @Test
+    void testPermitReleasedOnClose()
+            throws IOException
+    {
+        execute("http://kubernetes.test/api/v1/pods").close();
+        try (var response = execute("http://kubernetes.test/api/v1/pods")) {
+            assertThat(response.body().string()).isEqualTo("{}");
+        }
+        execute("http://kubernetes.test/api/v1/pods").close();
+    }
+
+    @Test
+    void testLongLivedCallsAreNotLimited()
+            throws IOException
+    {
+        try (var watch = execute("http://kubernetes.test/api/v1/pods?watch=true");
+                var log = execute("http://kubernetes.test/api/v1/namespaces/default/pods/web-0/log?follow=true")) {
+            execute("http://kubernetes.test/api/v1/pods").close();
+        }
+    }
+
+    private Response execute(String url)
+            throws IOException
+    {
+        return client.newCall(new Request.Builder().url(url).build()).execute();
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.ragnard.trino.k8s.client;
+
+import com.github.ragnard.trino.k8s.resources.ResourceRow;
+import com.google.gson.JsonParser;
+import io.airlift.slice.Slice;
+import io.kubernetes.client.util.generic.dynamic.DynamicKubernetesObject;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+final class TestResourceListDecoder
+{
+    private static final String POD = """
+            {"apiVersion":"v1","kind":"Pod",\
+            "metadata":{"name":"web-0","namespace":"default","uid":"1234","resourceVersion":"42",\
+            "creationTimestamp":"2024-05-17T08:30:15Z","labels":{"app":"web"},"annotations":{"note":"\\u003cb\\u003e \\u0026 \\"q\\""}},\
+            "spec":{"containers":[{"name":"app","image":"nginx:1.25","args":["-c","a\\nb"]}],"priority":1.50e3},\
+            "status":{"phase":"Running","hostIP":null}}""";
+
+    @Test
+    void testDecodeList()
+            throws IOException
+    {
+        var list = new ResourceListDecoder(true, true, Set.of()).decode(bytes("""
+                {"kind":"PodList","metadata":{"resourceVersion":"7","continue":"next","remainingItemCount":3},"items":[%s,%s]}""".formatted(POD, POD)));
+
+        assertThat(list.items()).hasSize(2);
+        assertThat(list.continueToken()).contains("next");
+        assertThat(list.remainingItemCount()).isEqualTo(OptionalLong.of(3));
+
+        var metadata = list.items().getFirst().metadata();
+        assertThat(metadata.getName()).isEqualTo("web-0");
+        assertThat(metadata.getNamespace()).isEqualTo("default");
+        assertThat(metadata.getUid()).isEqualTo("1234");
+        assertThat(metadata.getResourceVersion()).isEqualTo("42");
+        assertThat(metadata.getCreationTimestamp()).isEqualTo(OffsetDateTime.parse("2024-05-17T08:30:15Z"));
+        assertThat(metadata.getLabels()).isEqualTo(Map.of("app", "web"));
+        assertThat(metadata.getAnnotations()).isEqualTo(Map.of("note", "<b> & \"q\""));
+    }
+
+    @Test
+    void testLastPage()
+            throws IOException
+    {
+        var list = new ResourceListDecoder(false, false, Set.of()).decode(bytes("""
+                {"items":[],"metadata":{"continue":""}}"""));
+
+        assertThat(list.items()).isEmpty();
+        assertThat(list.continueToken()).isEqualTo(Optional.empty());
+        assertThat(list.remainingItemCount()).isEqualTo(OptionalLong.empty());
+    }
+
+    @Test
+    void testLabelsAndAnnotationsOnlyWhenNeeded()
+            throws IOException
+    {
+        var metadata = new ResourceListDecoder(false, false, Set.of()).decode(bytes("{\"items\":[%s]}".formatted(POD))).items().getFirst().metadata();
+
+        assertThat(metadata.getName()).isEqualTo("web-0");
+        assertThat(metadata.getLabels()).isNull();
+        assertThat(metadata.getAnnotations()).isNull();
+    }
+
+    @Test
+    void testInvalidList()
+    {
+        assertThatThrownBy(() -> new ResourceListDecoder(false, false, Set.of()).decode(bytes("[]")))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void testMetadataJson()
+            throws IOException
+    {
+        assertThat(decodeItem("{\"kind\":\"Pod\",\"metadata\":{\"name\":\"a\"}}").metadataJson().toStringUtf8())
+                .isEqualTo("{\"name\":\"a\"}");
+        assertThat(decodeItem("{\"kind\":\"Pod\",\"metadata\": { \"name\" : \"a\" } }").metadataJson().toStringUtf8())
+                .isEqualTo("{ \"name\" : \"a\" }");
+        assertThat(decodeItem("{\"kind\":\"Pod\"}").metadataJson()).isNull();
+        assertThat(decodeItem("{\"kind\":\"Pod\"}").metadata().getName()).isNull();
+    }
+
+    @Test
+    void testResourceJsonMetadataFirst()
+            throws IOException
+    {
+        assertResourceJson("{\"metadata\":{\"name\":\"a\"},\"kind\":\"Pod\",\"spec\":{}}", "{\"kind\":\"Pod\",\"spec\":{}}");
+        assertResourceJson("{ \"metadata\" : { \"name\" : \"a\" } , \"kind\" : \"Pod\" }", "{  \"kind\" : \"Pod\" }");
+        assertResourceJson("{\n  \"metadata\": {},\n  \"kind\": \"Pod\"\n}", "{\n  \n  \"kind\": \"Pod\"\n}");
+    }
+
+    @Test
+    void testResourceJsonMetadataMiddle()
+            throws IOException
+    {
+        assertResourceJson("{\"kind\":\"Pod\",\"metadata\":{\"name\":\"a\"},\"spec\":{}}", "{\"kind\":\"Pod\",\"spec\":{}}");
+        assertResourceJson("{\"kind\" : \"Pod\" , \"metadata\" : {} , \"spec\" : {}}", "{\"kind\" : \"Pod\" ,  \"spec\" : {}}");
+    }
+
+    @Test
+    void testResourceJsonMetadataLast()
+            throws IOException
+    {
+        assertResourceJson("{\"kind\":\"Pod\",\"spec\":{},\"metadata\":{\"name\":\"a\"}}", "{\"kind\":\"Pod\",\"spec\":{}}");
+        assertResourceJson("{\"kind\":\"Pod\" ,\n\t\"metadata\" : {} }", "{\"kind\":\"Pod\"  }");
+    }
+
+    @Test
+    void testResourceJsonMetadataOnly()
+            throws IOException
+    {
+        assertResourceJson("{\"metadata\":{\"name\":\"a\"}}", "{}");
+        assertResourceJson("{ \"metadata\" : {} }", "{  }");
+    }
+
+    @Test
+    void testResourceJsonWithoutMetadata()
+            throws IOException
+    {
+        assertResourceJson("{\"kind\":\"Pod\",\"spec\":{}}", "{\"kind\":\"Pod\",\"spec\":{}}");
+        assertResourceJson("{}", "{}");
+    }
+
+    @Test
+    void testResourceJsonNestedMetadata()
+            throws IOException
+    {
+        // only the top-level metadata member is dropped
+        assertResourceJson(
+                "{\"spec\":{\"template\":{\"metadata\":{\"name\":\"t\"}}},\"metadata\":{\"name\":\"a\"}}",
+                "{\"spec\":{\"template\":{\"metadata\":{\"name\":\"t\"}}}}");
+    }
+
+    @Test
+    void testConsistentWithObjectRow()
+            throws IOException
+    {
+        var paths = Set.of(
+                List.of("spec"),
+                List.of("spec", "containers", "0", "args"),
+                List.of("spec", "priority"),
+                List.of("status", "hostIP"),
+                List.of("metadata", "annotations"));
+        var listed = new ResourceListDecoder(true, true, paths).decode(bytes("{\"items\":[%s]}".formatted(POD))).items().getFirst();
+        var object = ResourceRow.of(new DynamicKubernetesObject(JsonParser.parseString(POD).getAsJsonObject()));
+
+        assertThat(string(object.metadataJson())).isEqualTo(string(listed.metadataJson()));
+        assertThat(string(object.resourceJson())).isEqualTo(string(listed.resourceJson()));
+        for (List<String> path : paths) {
+            assertThat(string(object.valueJson(path))).as("path %s", path).isEqualTo(string(listed.valueJson(path)));
+        }
+        assertThat(string(listed.valueJson(List.of("metadata", "annotations")))).isEqualTo("{\"note\":\"\\u003cb\\u003e \\u0026 \\\"q\\\"\"}");
+    }
+
+    private static void assertResourceJson(String item, String expected)
+            throws IOException
+    {
+        assertThat(decodeItem(item).resourceJson().toStringUtf8()).isEqualTo(expected);
+    }
+
+    private static ResourceRow decodeItem(String item)
+            throws IOException
+    {
+        return new ResourceListDecoder(false, false, Set.of()).decode(bytes("{\"items\":[%s]}".formatted(item))).items().getFirst();
+    }
+
+    private static String string(Slice json)
+    {
+        return json == null ? null : json.toStringUtf8();
+    }
+
+    private static byte[] bytes(String json)
+    {
+        return json.getBytes(UTF_8);
+    }
+}
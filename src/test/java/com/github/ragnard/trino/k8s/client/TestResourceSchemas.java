@@ -0,0 +1,196 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.ragnard.trino.k8s.client;
+
+import com.github.ragnard.trino.k8s.resources.FieldType;
+import com.github.ragnard.trino.k8s.resources.ResourceDescriptor;
+import com.github.ragnard.trino.k8s.resources.ResourceField;
+import io.kubernetes.client.openapi.ApiClient;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+final class TestResourceSchemas
+{
+    private static final String INDEX = """
+            {"paths": {
+              "apis/example.io/v1": {"serverRelativeURL": "/openapi/v3/apis/example.io/v1?hash=A"},
+              "apis/broken.io/v1": {"serverRelativeURL": "/openapi/v3/apis/broken.io/v1?hash=B"}
+            }}""";
+
+    private static final String DOCUMENT = """
+            {"components": {"schemas": {
+              "io.example.v1.Widget": {
+                "type": "object",
+                "x-kubernetes-group-version-kind": [{"group": "example.io", "version": "v1", "kind": "Widget"}],
+                "properties": {
+                  "apiVersion": {"type": "string"},
+                  "kind": {"type": "string"},
+                  "metadata": {"allOf": [{"$ref": "#/components/schemas/io.example.v1.ObjectMeta"}]},
+                  "spec": {"allOf": [{"$ref": "#/components/schemas/io.example.v1.WidgetSpec"}], "description": "The spec."},
+                  "status": {"$ref": "#/components/schemas/io.example.v1.WidgetStatus"}
+                }
+              },
+              "io.example.v1.ObjectMeta": {"type": "object", "properties": {"name": {"type": "string"}}},
+              "io.example.v1.WidgetSpec": {
+                "type": "object",
+                "properties": {
+                  "replicas": {"type": "integer", "format": "int32"},
+                  "ratio": {"type": "number"},
+                  "paused": {"type": "boolean"},
+                  "port": {"x-kubernetes-int-or-string": true},
+                  "startTime": {"type": "string", "format": "date-time"},
+                  "tags": {"type": "array", "items": {"type": "string"}},
+                  "limits": {"type": "object", "additionalProperties": {"type": "integer"}},
+                  "config": {"type": "object"},
+                  "missing": {"$ref": "#/components/schemas/io.example.v1.DoesNotExist"},
+                  "tree": {"$ref": "#/components/schemas/io.example.v1.Node"},
+                  "deep": {"type": "object", "properties": {
+                    "level3": {"type": "object", "properties": {
+                      "level4": {"type": "object", "properties": {
+                        "level5": {"type": "object", "properties": {"value": {"type": "string"}}}
+                      }}
+                    }}
+                  }}
+                }
+              },
+              "io.example.v1.WidgetStatus": {"type": "object", "properties": {"ready": {"type": "boolean"}}},
+              "io.example.v1.Node": {
+                "type": "object",
+                "properties": {
+                  "name": {"type": "string"},
+                  "children": {"type": "array", "items": {"$ref": "#/components/schemas/io.example.v1.Node"}}
+                }
+              }
+            }}}""";
+
+    private static final ResourceDescriptor WIDGET = new ResourceDescriptor("example.io", "v1", "Widget", "widgets", true, List.of());
+    private static final ResourceDescriptor GADGET = new ResourceDescriptor("example.io", "v1", "Gadget", "gadgets", true, List.of());
+    private static final ResourceDescriptor BROKEN = new ResourceDescriptor("broken.io", "v1", "Broken", "brokens", true, List.of());
+    private static final ResourceDescriptor UNPUBLISHED = new ResourceDescriptor("other.io", "v1", "Other", "others", false, List.of());
+
+    private final List<String> requests = new ArrayList<>();
+    private ResourceSchemas schemas;
+
+    @BeforeEach
+    void setUp()
+    {
+        requests.clear();
+        var responses = Map.of(
+                "/openapi/v3", INDEX,
+                "/openapi/v3/apis/example.io/v1", DOCUMENT);
+
+        var apiClient = new ApiClient().setBasePath("http://kubernetes.test");
+        apiClient.setHttpClient(new OkHttpClient.Builder()
+                .addInterceptor(chain -> {
+                    var path = chain.request().url().encodedPath();
+                    requests.add(path);
+                    var body = responses.get(path);
+                    return new Response.Builder()
+                            .request(chain.request())
+                            .protocol(Protocol.HTTP_1_1)
+                            .code(body == null ? 500 : 200)
+                            .message(body == null ? "Internal Server Error" : "OK")
+                            .body(ResponseBody.create(body == null ? "" : body, MediaType.get("application/json")))
+                            .build();
+                })
+                .build());
+        schemas = new ResourceSchemas(apiClient);
+    }
+
+    @Test
+    void testFields()
+    {
+        var fields = schemas.withFields(List.of(WIDGET)).getFirst().fields();
+
+        // apiVersion, kind and metadata have columns of their own
+        assertThat(fields).extracting(ResourceField::name).containsExactly("spec", "status");
+        assertThat(fields.get(1).type()).isEqualTo(FieldType.row(List.of(new ResourceField("ready", FieldType.BOOLEAN))));
+
+        var spec = fields.getFirst().type();
+        assertThat(spec.kind()).isEqualTo(FieldType.Kind.ROW);
+        assertThat(field(spec, "replicas")).isEqualTo(FieldType.BIGINT);
+        assertThat(field(spec, "ratio")).isEqualTo(FieldType.DOUBLE);
+        assertThat(field(spec, "paused")).isEqualTo(FieldType.BOOLEAN);
+        assertThat(field(spec, "port")).isEqualTo(FieldType.VARCHAR);
+        assertThat(field(spec, "startTime")).isEqualTo(FieldType.TIMESTAMP);
+        assertThat(field(spec, "tags")).isEqualTo(FieldType.array(FieldType.VARCHAR));
+        assertThat(field(spec, "limits")).isEqualTo(FieldType.map(FieldType.BIGINT));
+        assertThat(field(spec, "config")).isEqualTo(FieldType.VARCHAR);
+        assertThat(field(spec, "missing")).isEqualTo(FieldType.VARCHAR);
+    }
+
+    @Test
+    void testRecursiveSchema()
+    {
+        var spec = schemas.withFields(List.of(WIDGET)).getFirst().fields().getFirst().type();
+
+        // the reference back to Node is cut off as JSON text
+        assertThat(field(spec, "tree")).isEqualTo(FieldType.row(List.of(
+                new ResourceField("name", FieldType.VARCHAR),
+                new ResourceField("children", FieldType.array(FieldType.VARCHAR)))));
+    }
+
+    @Test
+    void testDepthLimit()
+    {
+        var spec = schemas.withFields(List.of(WIDGET)).getFirst().fields().getFirst().type();
+
+        // spec is the row at depth 1, so rows nested deeper than depth 4 are kept as JSON text
+        var level4 = field(field(field(spec, "deep"), "level3"), "level4");
+        assertThat(level4.kind()).isEqualTo(FieldType.Kind.ROW);
+        assertThat(field(level4, "level5")).isEqualTo(FieldType.VARCHAR);
+    }
+
+    @Test
+    void testUndescribedResources()
+    {
+        var resources = schemas.withFields(List.of(WIDGET, GADGET, BROKEN, UNPUBLISHED));
+
+        assertThat(resources.get(0).fields()).isNotEmpty();
+        // not in the document, failing to fetch, and not in the index
+        assertThat(resources.get(1)).isEqualTo(GADGET);
+        assertThat(resources.get(2)).isEqualTo(BROKEN);
+        assertThat(resources.get(3)).isEqualTo(UNPUBLISHED);
+    }
+
+    @Test
+    void testDocumentsAreReused()
+    {
+        var first = schemas.withFields(List.of(WIDGET));
+        var second = schemas.withFields(List.of(WIDGET));
+
+        assertThat(second).isEqualTo(first);
+        assertThat(requests).containsExactly("/openapi/v3", "/openapi/v3/apis/example.io/v1", "/openapi/v3");
+    }
+
+    private static FieldType field(FieldType row, String name)
+    {
+        return row.fields().stream()
+                .filter(field -> field.name().equals(name))
+                .findFirst()
+                .orElseThrow()
+                .type();
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.ragnard.trino.k8s.logs;
+
+import io.airlift.slice.Slice;
+import io.trino.spi.block.BlockBuilder;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.regex.Pattern;
+
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.trino.spi.type.VarcharType.VARCHAR;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares stripping ANSI escape codes from log messages by scanning their
+ * bytes with {@link AnsiEscapeCodes} against the regex on decoded strings
+ * that was used before, for plain and for colored messages.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(NANOSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OperationsPerInvocation(BenchmarkAnsiEscapeCodes.LINES)
+public class BenchmarkAnsiEscapeCodes
+{
+    static final int LINES = 1024;
+
+    private static final Pattern ANSI_CODES = Pattern.compile("\u001B\\[[;\\d]*[ -/]*[@-~]");
+
+    @Param({"plain", "colored"})
+    public String messages = "colored";
+
+    private final Slice[] lines = new Slice[LINES];
+    private BlockBuilder output;
+
+    @Setup
+    public void setup()
+    {
+        var random = ThreadLocalRandom.current();
+        for (int i = 0; i < LINES; i++) {
+            var message = "handled request method=GET path=/api/v1/items/%d status=200 duration=%dms".formatted(i, random.nextInt(500));
+            if (messages.equals("colored")) {
+                message = "\u001B[32mINFO\u001B[0m \u001B[1m%s\u001B[22m".formatted(message);
+            }
+            lines[i] = utf8Slice(message);
+        }
+        output = VARCHAR.createBlockBuilder(null, LINES);
+    }
+
+    @Benchmark
+    public BlockBuilder scanBytes()
+    {
+        output = output.newBlockBuilderLike(null);
+        for (Slice line : lines) {
+            AnsiEscapeCodes.writeWithoutAnsiCodes(output, line, 0, line.length());
+        }
+        return output;
+    }
+
+    @Benchmark
+    public BlockBuilder regex()
+    {
+        output = output.newBlockBuilderLike(null);
+        for (Slice line : lines) {
+            VARCHAR.writeSlice(output, utf8Slice(ANSI_CODES.matcher(line.toStringUtf8()).replaceAll("")));
+        }
+        return output;
+    }
+
+    @Test
+    void verify()
+    {
+        for (String messages : new String[] {"plain", "colored"}) {
+            this.messages = messages;
+            setup();
+            var scanned = scanBytes().build();
+            var matched = regex().build();
+            for (int i = 0; i < LINES; i++) {
+                assertThat(VARCHAR.getSlice(scanned, i)).isEqualTo(VARCHAR.getSlice(matched, i));
+            }
+        }
+    }
+
+    public static void main(String[] args)
+            throws RunnerException
+    {
+        new Runner(new OptionsBuilder()
+                .include(BenchmarkAnsiEscapeCodes.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
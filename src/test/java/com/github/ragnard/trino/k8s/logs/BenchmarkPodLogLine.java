@@ -0,0 +1,120 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.ragnard.trino.k8s.logs;
+
+import io.airlift.slice.Slice;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static io.airlift.slice.Slices.utf8Slice;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Compares parsing pod log lines in place from bytes with
+ * {@link PodLogLine} against decoding each line to a string and parsing
+ * its timestamp with {@link OffsetDateTime}, as was done before.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(NANOSECONDS)
+@BenchmarkMode(Mode.AverageTime)
+@Fork(1)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@OperationsPerInvocation(BenchmarkPodLogLine.LINES)
+public class BenchmarkPodLogLine
+{
+    static final int LINES = 1024;
+
+    private final Slice[] lines = new Slice[LINES];
+
+    @Setup
+    public void setup()
+    {
+        var random = ThreadLocalRandom.current();
+        long start = Instant.parse("2024-05-17T00:00:00Z").getEpochSecond();
+        for (int i = 0; i < LINES; i++) {
+            var timestamp = Instant.ofEpochSecond(start + random.nextInt(86_400), random.nextInt(1_000_000_000));
+            lines[i] = utf8Slice("%s level=info msg=\"handled request\" method=GET path=/api/v1/items/%d status=200 duration=%dms".formatted(timestamp, i, random.nextInt(500)));
+        }
+    }
+
+    @Benchmark
+    public void parseInPlace(Blackhole blackhole)
+    {
+        var logLine = new PodLogLine("default", "app");
+        for (Slice line : lines) {
+            logLine.parse(line, line.length());
+            blackhole.consume(logLine.epochSecond());
+            blackhole.consume(logLine.nanoOfSecond());
+            blackhole.consume(logLine.logLength());
+        }
+    }
+
+    @Benchmark
+    public void parseWithJavaTime(Blackhole blackhole)
+    {
+        for (Slice line : lines) {
+            var parts = new String(line.byteArray(), line.byteArrayOffset(), line.length(), StandardCharsets.UTF_8).split(" ", 2);
+            var timestamp = OffsetDateTime.parse(parts[0], DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+            blackhole.consume(timestamp.toEpochSecond());
+            blackhole.consume(timestamp.getNano());
+            blackhole.consume(utf8Slice(parts[1]));
+        }
+    }
+
+    @Test
+    void verify()
+    {
+        setup();
+        var logLine = new PodLogLine("default", "app");
+        for (Slice line : lines) {
+            logLine.parse(line, line.length());
+            var parts = line.toStringUtf8().split(" ", 2);
+            var timestamp = OffsetDateTime.parse(parts[0], DateTimeFormatter.ISO_OFFSET_DATE_TIME);
+            assertThat(logLine.epochSecond()).isEqualTo(timestamp.toEpochSecond());
+            assertThat(logLine.nanoOfSecond()).isEqualTo(timestamp.getNano());
+            assertThat(logLine.log().toStringUtf8()).isEqualTo(parts[1]);
+        }
+    }
+
+    public static void main(String[] args)
+            throws RunnerException
+    {
+        new Runner(new OptionsBuilder()
+                .include(BenchmarkPodLogLine.class.getSimpleName())
+                .build())
+                .run();
+    }
+}
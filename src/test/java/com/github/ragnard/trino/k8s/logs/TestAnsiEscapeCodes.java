@@ -0,0 +1,150 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.ragnard.trino.k8s.logs;
+
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.trino.spi.type.VarcharType.VARCHAR;
+import static org.assertj.core.api.Assertions.assertThat;
+
+final class TestAnsiEscapeCodes
+{
+    // the regex that was used before scanning bytes
+    private static final Pattern ANSI_CODES = Pattern.compile("\u001B\\[[;\\d]*[ -/]*[@-~]");
+
+    private static final List<String> FRAGMENTS = List.of(
+            "a", "log ", "é", "€", "\u001B", "[", "\u001B[", "0", "1", "31", ";", " ", "!", "/", "m", "K", "@", "~", "\u007F", "\n");
+
+    @Test
+    void testWithoutEscapes()
+    {
+        assertStripped("");
+        assertStripped("plain message");
+        assertStripped("exactly8");
+        assertStripped("sixteen bytes!!!");
+        assertStripped("multi-byte é and € characters");
+    }
+
+    @Test
+    void testSequences()
+    {
+        assertStripped("\u001B[31mred\u001B[0m", "red");
+        assertStripped("\u001B[1;32mbold green\u001B[m", "bold green");
+        assertStripped("\u001B[2K\u001B[1Gprogress", "progress");
+        assertStripped("\u001B[ @shifted", "shifted");
+        assertStripped("\u001B[31m\u001B[1m\u001B[4mstacked", "stacked");
+    }
+
+    @Test
+    void testSequencesAcrossWords()
+    {
+        // escapes starting at every position of the first words, ending in the next word
+        for (int prefix = 0; prefix < 20; prefix++) {
+            var line = "x".repeat(prefix) + "\u001B[38;5;208m" + "y".repeat(prefix) + "\u001B[0m";
+            assertStripped(line, "x".repeat(prefix) + "y".repeat(prefix));
+        }
+    }
+
+    @Test
+    void testTrailingPartialWord()
+    {
+        for (int length = 0; length < 24; length++) {
+            var line = "z".repeat(length) + "\u001B[0m";
+            assertStripped(line, "z".repeat(length));
+            assertStripped("z".repeat(length) + "\u001B");
+        }
+    }
+
+    @Test
+    void testIncompleteSequences()
+    {
+        assertStripped("\u001B");
+        assertStripped("lone \u001B escape");
+        assertStripped("no bracket \u001B(B");
+        assertStripped("truncated \u001B[");
+        assertStripped("truncated \u001B[31");
+        assertStripped("truncated \u001B[31;");
+        assertStripped("no final \u001B[31\u0001m");
+        assertStripped("escape in sequence \u001B[3\u001B[0mx", "escape in sequence \u001B[3x");
+        assertStripped("\u001B\u001B[0m", "\u001B");
+    }
+
+    @Test
+    void testMatchesRegex()
+    {
+        var random = new Random(42);
+        for (int i = 0; i < 20_000; i++) {
+            var line = new StringBuilder();
+            int fragments = random.nextInt(40);
+            for (int j = 0; j < fragments; j++) {
+                line.append(FRAGMENTS.get(random.nextInt(FRAGMENTS.size())));
+            }
+            assertStripped(line.toString());
+        }
+    }
+
+    @Test
+    void testIndexOfEscape()
+    {
+        var random = new Random(7);
+        for (int i = 0; i < 2_000; i++) {
+            byte[] bytes = new byte[random.nextInt(40)];
+            for (int j = 0; j < bytes.length; j++) {
+                bytes[j] = random.nextInt(8) == 0 ? 0x1B : (byte) random.nextInt(256);
+            }
+            var slice = Slices.wrappedBuffer(bytes);
+            for (int from = 0; from <= bytes.length; from++) {
+                for (int to = from; to <= bytes.length; to++) {
+                    assertThat(AnsiEscapeCodes.indexOfEscape(slice, from, to)).isEqualTo(naiveIndexOfEscape(bytes, from, to));
+                }
+            }
+        }
+    }
+
+    private static void assertStripped(String line)
+    {
+        assertStripped(line, ANSI_CODES.matcher(line).replaceAll(""));
+    }
+
+    private static void assertStripped(String line, String expected)
+    {
+        assertThat(ANSI_CODES.matcher(line).replaceAll("")).isEqualTo(expected);
+
+        // also at an offset into a larger buffer, as lines are ranges of the line buffer
+        for (String padding : List.of("", "p", "pad\u001B[0m ")) {
+            Slice buffer = utf8Slice(padding + line + padding);
+            int offset = utf8Slice(padding).length();
+            var output = VARCHAR.createBlockBuilder(null, 1);
+            AnsiEscapeCodes.writeWithoutAnsiCodes(output, buffer, offset, utf8Slice(line).length());
+            assertThat(VARCHAR.getSlice(output.build(), 0).toStringUtf8()).isEqualTo(expected);
+        }
+    }
+
+    private static int naiveIndexOfEscape(byte[] bytes, int from, int to)
+    {
+        for (int i = from; i < to; i++) {
+            if (bytes[i] == 0x1B) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
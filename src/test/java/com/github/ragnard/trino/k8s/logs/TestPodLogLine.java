@@ -0,0 +1,162 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.ragnard.trino.k8s.logs;
+
+import io.airlift.slice.Slice;
+import io.trino.spi.TrinoException;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+
+import static io.airlift.slice.Slices.utf8Slice;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+final class TestPodLogLine
+{
+    @Test
+    void testUtc()
+    {
+        assertTimestamp("2024-05-17T08:30:15Z");
+        assertTimestamp("2024-05-17T08:30:15.123456789Z");
+        assertTimestamp("1970-01-01T00:00:00Z");
+    }
+
+    @Test
+    void testOffsets()
+    {
+        assertTimestamp("2024-05-17T08:30:15+05:30");
+        assertTimestamp("2024-05-17T08:30:15.5-08:00");
+        assertTimestamp("2024-01-01T00:30:00+01:00");
+        assertTimestamp("2023-12-31T23:30:00-14:00");
+        assertTimestamp("2024-05-17T08:30:15+00:00");
+    }
+
+    @Test
+    void testFractionalSeconds()
+    {
+        assertThat(parse("2024-05-17T08:30:15.5Z").nanoOfSecond()).isEqualTo(500_000_000);
+        assertThat(parse("2024-05-17T08:30:15.05Z").nanoOfSecond()).isEqualTo(50_000_000);
+        assertThat(parse("2024-05-17T08:30:15.000000001Z").nanoOfSecond()).isEqualTo(1);
+        assertThat(parse("2024-05-17T08:30:15.999999999Z").nanoOfSecond()).isEqualTo(999_999_999);
+        // digits beyond nanoseconds are truncated
+        assertThat(parse("2024-05-17T08:30:15.1234567899Z").nanoOfSecond()).isEqualTo(123_456_789);
+        assertThat(parse("2024-05-17T08:30:15Z").nanoOfSecond()).isEqualTo(0);
+    }
+
+    @Test
+    void testBeforeEpoch()
+    {
+        assertThat(parse("1969-12-31T23:59:59Z").epochSecond()).isEqualTo(-1);
+        assertThat(parse("1969-12-31T23:59:59.25Z").nanoOfSecond()).isEqualTo(250_000_000);
+        assertTimestamp("1969-07-20T20:17:40Z");
+        assertTimestamp("1900-03-01T00:00:00Z");
+        assertTimestamp("1600-02-29T12:00:00+02:00");
+        assertTimestamp("0001-01-01T00:00:00Z");
+    }
+
+    @Test
+    void testLeapYears()
+    {
+        assertTimestamp("2024-02-29T23:59:59Z");
+        assertTimestamp("2024-03-01T00:00:00Z");
+        assertTimestamp("2000-02-29T00:00:00Z");
+        assertTimestamp("2100-02-28T23:59:59Z");
+        assertTimestamp("2100-03-01T00:00:00Z");
+
+        assertInvalid("2023-02-29T00:00:00Z hello");
+        assertInvalid("2100-02-29T00:00:00Z hello");
+        assertInvalid("2024-04-31T00:00:00Z hello");
+    }
+
+    @Test
+    void testDaysFromCivil()
+    {
+        for (var date = LocalDate.of(1500, 1, 1); date.isBefore(LocalDate.of(2500, 1, 1)); date = date.plusDays(1)) {
+            assertThat(PodLogLine.daysFromCivil(date.getYear(), date.getMonthValue(), date.getDayOfMonth()))
+                    .as("%s", date)
+                    .isEqualTo(date.toEpochDay());
+        }
+        assertThat(PodLogLine.daysFromCivil(0, 1, 1)).isEqualTo(LocalDate.of(0, 1, 1).toEpochDay());
+        assertThat(PodLogLine.daysFromCivil(9999, 12, 31)).isEqualTo(LocalDate.of(9999, 12, 31).toEpochDay());
+    }
+
+    @Test
+    void testMessage()
+    {
+        var line = parse("2024-05-17T08:30:15.1Z GET /healthz 200");
+        assertThat(line.log().toStringUtf8()).isEqualTo("GET /healthz 200");
+        assertThat(line.logOffset()).isEqualTo(23);
+        assertThat(line.namespace()).isEqualTo("default");
+        assertThat(line.container()).isEqualTo("app");
+
+        assertThat(parse("2024-05-17T08:30:15Z ").log().toStringUtf8()).isEmpty();
+        assertThat(parse("2024-05-17T08:30:15Z").log().toStringUtf8()).isEmpty();
+        assertThat(parse("2024-05-17T08:30:15Z  two  spaces ").log().toStringUtf8()).isEqualTo(" two  spaces ");
+    }
+
+    @Test
+    void testReusedBuffer()
+    {
+        var buffer = utf8Slice("2024-05-17T08:30:15Z first line, followed by stale bytes");
+        var line = new PodLogLine("default", "app");
+        line.parse(buffer, "2024-05-17T08:30:15Z first".length());
+        assertThat(line.log().toStringUtf8()).isEqualTo("first");
+    }
+
+    @Test
+    void testInvalid()
+    {
+        assertInvalid("");
+        assertInvalid("hello world");
+        assertInvalid("2024-05-17 08:30:15Z hello");
+        assertInvalid("2024-05-17T08:30:15 hello");
+        assertInvalid("2024-05-17T08:30:15. hello");
+        assertInvalid("2024-05-17T08:30:15.5 hello");
+        assertInvalid("2024-05-17T08:30:15+0530 hello");
+        assertInvalid("2024-05-17T08:30:15+05:3x hello");
+        assertInvalid("2024-05-17T08:30:15Zjunk hello");
+        assertInvalid("2024-13-17T08:30:15Z hello");
+        assertInvalid("2024-05-00T08:30:15Z hello");
+        assertInvalid("2024-05-17T24:30:15Z hello");
+        assertInvalid("2024-05-17T08:60:15Z hello");
+        assertInvalid("2024-05-17T08:30:60Z hello");
+        assertInvalid("2024-O5-17T08:30:15Z hello");
+    }
+
+    private static void assertTimestamp(String timestamp)
+    {
+        var expected = OffsetDateTime.parse(timestamp).toInstant();
+        var line = parse(timestamp + " message");
+        assertThat(line.epochSecond()).as(timestamp).isEqualTo(expected.getEpochSecond());
+        assertThat(line.nanoOfSecond()).as(timestamp).isEqualTo(expected.getNano());
+        assertThat(line.log().toStringUtf8()).isEqualTo("message");
+    }
+
+    private static void assertInvalid(String line)
+    {
+        assertThatThrownBy(() -> parse(line))
+                .isInstanceOf(TrinoException.class)
+                .hasMessageStartingWith("Invalid pod log line");
+    }
+
+    private static PodLogLine parse(String value)
+    {
+        Slice line = utf8Slice(value);
+        var logLine = new PodLogLine("default", "app");
+        logLine.parse(line, line.length());
+        return logLine;
+    }
+}
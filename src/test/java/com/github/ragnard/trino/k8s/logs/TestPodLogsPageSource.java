@@ -0,0 +1,189 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.ragnard.trino.k8s.logs;
+
+import io.trino.spi.TrinoException;
+import io.trino.spi.connector.SourcePage;
+import okhttp3.ResponseBody;
+import okio.BufferedSink;
+import okio.Okio;
+import okio.Pipe;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static io.trino.spi.StandardErrorCode.NOT_FOUND;
+import static io.trino.spi.type.VarcharType.VARCHAR;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+final class TestPodLogsPageSource
+{
+    private static final PodLogsTableFunctionSplit SPLIT = new PodLogsTableFunctionSplit(
+            "default", "pod", "app", OptionalInt.empty(), OptionalLong.empty(), OptionalLong.empty(), true, Optional.empty(), OptionalLong.empty());
+
+    private ExecutorService executor;
+    private Pipe pipe;
+    private BufferedSink sink;
+
+    @BeforeEach
+    void setUp()
+    {
+        executor = Executors.newCachedThreadPool();
+        pipe = new Pipe(1024 * 1024);
+        sink = Okio.buffer(pipe.sink());
+    }
+
+    @AfterEach
+    void tearDown()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void testBlockedUntilLineArrives()
+            throws Exception
+    {
+        try (var pageSource = pageSource(SPLIT)) {
+            CompletableFuture<?> blocked = pageSource.isBlocked();
+            assertThat(blocked).isNotDone();
+            assertThat(pageSource.getNextSourcePage()).isNull();
+
+            write("2024-05-17T08:30:15Z first\n");
+            blocked.get(10, SECONDS);
+            assertThat(logs(pageSource.getNextSourcePage())).containsExactly("first");
+            assertThat(pageSource.isFinished()).isFalse();
+            assertThat(pageSource.isBlocked()).isNotDone();
+        }
+    }
+
+    @Test
+    void testPartialLineIsHeldBack()
+            throws Exception
+    {
+        try (var pageSource = pageSource(SPLIT)) {
+            write("2024-05-17T08:30:15Z fir");
+            pageSource.isBlocked().get(10, SECONDS);
+            // only part of the line has arrived, so nothing is emitted and the source stays blocked
+            assertThat(pageSource.getNextSourcePage()).isNull();
+            CompletableFuture<?> blocked = pageSource.isBlocked();
+            assertThat(blocked).isNotDone();
+
+            write("st\n2024-05-17T08:30:16Z second\n");
+            blocked.get(10, SECONDS);
+            assertThat(read(pageSource, 2)).containsExactly("first", "second");
+        }
+    }
+
+    @Test
+    void testEndOfStream()
+            throws Exception
+    {
+        try (var pageSource = pageSource(SPLIT)) {
+            write("2024-05-17T08:30:15Z first\n2024-05-17T08:30:16Z last");
+            sink.close();
+            assertThat(read(pageSource, Integer.MAX_VALUE)).containsExactly("first", "last");
+            assertThat(pageSource.isFinished()).isTrue();
+            assertThat(pageSource.isBlocked()).isDone();
+        }
+    }
+
+    @Test
+    void testMaxLines()
+            throws Exception
+    {
+        var split = new PodLogsTableFunctionSplit(
+                "default", "pod", "app", OptionalInt.empty(), OptionalLong.empty(), OptionalLong.empty(), true, Optional.empty(), OptionalLong.of(2));
+        try (var pageSource = pageSource(split)) {
+            write("2024-05-17T08:30:15Z a\n2024-05-17T08:30:16Z b\n2024-05-17T08:30:17Z c\n");
+            assertThat(read(pageSource, Integer.MAX_VALUE)).containsExactly("a", "b");
+            assertThat(pageSource.isFinished()).isTrue();
+        }
+    }
+
+    @Test
+    void testOpenFailure()
+            throws Exception
+    {
+        try (var pageSource = new PodLogsPageSource(SPLIT, PodLogsTable.COLUMNS, () -> {
+            throw new TrinoException(NOT_FOUND, "Kubernetes object not found");
+        }, executor)) {
+            pageSource.isBlocked().get(10, SECONDS);
+            assertThatThrownBy(pageSource::getNextSourcePage)
+                    .isInstanceOfSatisfying(TrinoException.class, e -> assertThat(e.getErrorCode()).isEqualTo(NOT_FOUND.toErrorCode()));
+        }
+    }
+
+    @Test
+    void testCloseStopsReader()
+            throws Exception
+    {
+        var pageSource = pageSource(SPLIT);
+        CompletableFuture<?> blocked = pageSource.isBlocked();
+        // the reader is waiting for input that never arrives
+        pageSource.close();
+        assertThat(pageSource.isFinished()).isTrue();
+
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, SECONDS)).isTrue();
+        assertThat(blocked).isDone();
+    }
+
+    private PodLogsPageSource pageSource(PodLogsTableFunctionSplit split)
+    {
+        var source = Okio.buffer(pipe.source());
+        return new PodLogsPageSource(split, PodLogsTable.COLUMNS, () -> ResponseBody.create(source, null, -1), executor);
+    }
+
+    private void write(String data)
+            throws IOException
+    {
+        sink.writeUtf8(data);
+        sink.flush();
+    }
+
+    private static List<String> read(PodLogsPageSource pageSource, int lines)
+            throws Exception
+    {
+        List<String> logs = new ArrayList<>();
+        while (logs.size() < lines && !pageSource.isFinished()) {
+            pageSource.isBlocked().get(10, SECONDS);
+            logs.addAll(logs(pageSource.getNextSourcePage()));
+        }
+        return logs;
+    }
+
+    private static List<String> logs(SourcePage page)
+    {
+        List<String> logs = new ArrayList<>();
+        if (page != null) {
+            var block = page.getBlock(PodLogsTable.COLUMNS.indexOf(PodLogsTable.LOG));
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                logs.add(VARCHAR.getSlice(block, position).toStringUtf8());
+            }
+        }
+        return logs;
+    }
+}
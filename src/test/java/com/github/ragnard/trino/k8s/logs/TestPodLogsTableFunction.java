@@ -0,0 +1,82 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.ragnard.trino.k8s.logs;
+
+import io.airlift.units.Duration;
+import io.trino.spi.TrinoException;
+import io.trino.spi.function.table.Argument;
+import io.trino.spi.function.table.ScalarArgument;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.trino.spi.StandardErrorCode.INVALID_FUNCTION_ARGUMENT;
+import static io.trino.spi.type.BigintType.BIGINT;
+import static io.trino.spi.type.BooleanType.BOOLEAN;
+import static io.trino.spi.type.VarcharType.VARCHAR;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+final class TestPodLogsTableFunction
+{
+    @Test
+    void testAnalyze()
+    {
+        assertThat(analyze(false, null, null)).isEqualTo(new PodLogsTableFunctionHandle("default", "deployment/api", Optional.empty(), false, Optional.empty(), OptionalLong.empty()));
+        assertThat(analyze(true, "2m", null).duration()).contains(Duration.valueOf("2m"));
+        assertThat(analyze(true, "1ms", 10L).maxLines()).isEqualTo(OptionalLong.of(10));
+        assertThat(analyze(true, null, 10L).follow()).isTrue();
+    }
+
+    @Test
+    void testFollowIsBounded()
+    {
+        assertInvalid(() -> analyze(true, null, null), "FOLLOW requires DURATION or MAX_LINES to bound the query");
+        assertInvalid(() -> analyze(true, null, 0L), "MAX_LINES must be positive");
+    }
+
+    @Test
+    void testDuration()
+    {
+        // a timeout of zero milliseconds would never end the stream
+        assertInvalid(() -> analyze(true, "0s", null), "DURATION must be at least 1ms");
+        assertInvalid(() -> analyze(true, "0.4ms", null), "DURATION must be at least 1ms");
+        assertInvalid(() -> analyze(true, "0.4ms", 10L), "DURATION must be at least 1ms");
+        assertInvalid(() -> analyze(true, "soon", null), "Invalid DURATION: soon");
+        // a read that times out would return part of the log
+        assertInvalid(() -> analyze(false, "30s", null), "DURATION requires FOLLOW");
+    }
+
+    private static PodLogsTableFunctionHandle analyze(boolean follow, String duration, Long maxLines)
+    {
+        Map<String, Argument> arguments = Map.of(
+                "NAMESPACE", new ScalarArgument(VARCHAR, utf8Slice("default")),
+                "SELECTOR", new ScalarArgument(VARCHAR, utf8Slice("deployment/api")),
+                "CONTAINER", new ScalarArgument(VARCHAR, null),
+                "FOLLOW", new ScalarArgument(BOOLEAN, follow),
+                "DURATION", new ScalarArgument(VARCHAR, duration == null ? null : utf8Slice(duration)),
+                "MAX_LINES", new ScalarArgument(BIGINT, maxLines));
+        return (PodLogsTableFunctionHandle) new PodLogsTableFunction().analyze(null, null, arguments, null).getHandle();
+    }
+
+    private static void assertInvalid(Runnable analyze, String message)
+    {
+        assertThatThrownBy(analyze::run)
+                .isInstanceOfSatisfying(TrinoException.class, e -> assertThat(e.getErrorCode()).isEqualTo(INVALID_FUNCTION_ARGUMENT.toErrorCode()))
+                .hasMessage(message);
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.ragnard.trino.k8s.resources;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import io.trino.spi.type.ArrayType;
+import io.trino.spi.type.MapType;
+import io.trino.spi.type.RowType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static io.trino.spi.type.BigintType.BIGINT;
+import static io.trino.spi.type.BooleanType.BOOLEAN;
+import static io.trino.spi.type.DoubleType.DOUBLE;
+import static io.trino.spi.type.TimestampWithTimeZoneType.TIMESTAMP_TZ_MICROS;
+import static io.trino.spi.type.VarcharType.VARCHAR;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+final class TestFieldType
+{
+    // like the mapper of discovery snapshots
+    private static final ObjectMapper MAPPER = JsonMapper.builder()
+            .disable(MapperFeature.AUTO_DETECT_GETTERS, MapperFeature.AUTO_DETECT_IS_GETTERS)
+            .build();
+
+    private static final FieldType CONTAINER = FieldType.row(List.of(
+            new ResourceField("name", FieldType.VARCHAR),
+            new ResourceField("ports", FieldType.array(FieldType.row(List.of(new ResourceField("containerPort", FieldType.BIGINT))))),
+            new ResourceField("resources", FieldType.map(FieldType.VARCHAR))));
+
+    @Test
+    void testScalarTypes()
+    {
+        assertThat(FieldType.VARCHAR.toType()).isEqualTo(VARCHAR);
+        assertThat(FieldType.BIGINT.toType()).isEqualTo(BIGINT);
+        assertThat(FieldType.DOUBLE.toType()).isEqualTo(DOUBLE);
+        assertThat(FieldType.BOOLEAN.toType()).isEqualTo(BOOLEAN);
+        assertThat(FieldType.TIMESTAMP.toType()).isEqualTo(TIMESTAMP_TZ_MICROS);
+    }
+
+    @Test
+    void testNestedTypes()
+    {
+        assertThat(FieldType.array(FieldType.BIGINT).toType()).isEqualTo(new ArrayType(BIGINT));
+        assertThat(FieldType.map(FieldType.BOOLEAN).toType()).isInstanceOfSatisfying(MapType.class, type -> {
+            assertThat(type.getKeyType()).isEqualTo(VARCHAR);
+            assertThat(type.getValueType()).isEqualTo(BOOLEAN);
+        });
+        assertThat(CONTAINER.toType()).isInstanceOfSatisfying(RowType.class, type -> {
+            assertThat(type.getFields()).extracting(field -> field.getName().orElseThrow()).containsExactly("name", "ports", "resources");
+            assertThat(type.getFields().get(1).getType()).isEqualTo(new ArrayType(RowType.from(List.of(RowType.field("containerPort", BIGINT)))));
+        });
+    }
+
+    @Test
+    void testInvalidTypes()
+    {
+        assertThatThrownBy(() -> new FieldType(FieldType.Kind.ARRAY, null, List.of()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new FieldType(FieldType.Kind.VARCHAR, FieldType.BIGINT, List.of()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> FieldType.row(List.of()))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new FieldType(FieldType.Kind.BIGINT, null, List.of(new ResourceField("a", FieldType.BIGINT))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void testJsonRoundTrip()
+            throws JsonProcessingException
+    {
+        var type = FieldType.map(CONTAINER);
+
+        assertThat(MAPPER.readValue(MAPPER.writeValueAsString(type), FieldType.class)).isEqualTo(type);
+        assertThat(MAPPER.readValue(MAPPER.writeValueAsString(FieldType.TIMESTAMP), FieldType.class)).isEqualTo(FieldType.TIMESTAMP);
+    }
+
+    @Test
+    void testRetainedSize()
+    {
+        assertThat(CONTAINER.getRetainedSizeInBytes()).isGreaterThan(FieldType.VARCHAR.getRetainedSizeInBytes());
+    }
+}
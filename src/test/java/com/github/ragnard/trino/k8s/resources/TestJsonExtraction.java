@@ -0,0 +1,222 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.ragnard.trino.k8s.resources;
+
+import com.github.ragnard.trino.k8s.KubernetesColumnHandle;
+import com.github.ragnard.trino.k8s.client.ResourceListDecoder;
+import com.google.common.collect.ImmutableSet;
+import com.google.gson.JsonParser;
+import io.airlift.slice.Slice;
+import io.kubernetes.client.util.generic.dynamic.DynamicKubernetesObject;
+import io.trino.operator.scalar.JsonFunctions;
+import io.trino.operator.scalar.JsonPath;
+import io.trino.spi.connector.ColumnHandle;
+import io.trino.spi.expression.Call;
+import io.trino.spi.expression.ConnectorExpression;
+import io.trino.spi.expression.Constant;
+import io.trino.spi.expression.FunctionName;
+import io.trino.spi.expression.Variable;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.github.ragnard.trino.k8s.resources.ResourceTableColumns.METADATA;
+import static com.github.ragnard.trino.k8s.resources.ResourceTableColumns.RESOURCE;
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.trino.spi.expression.StandardFunctions.CAST_FUNCTION_NAME;
+import static io.trino.spi.type.VarcharType.VARCHAR;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+final class TestJsonExtraction
+{
+    private static final String POD = """
+            {"apiVersion":"v1","kind":"Pod",\
+            "metadata":{"name":"web-0","labels":{"app":"web","app.kubernetes.io/name":"web"},"ownerReferences":[{"kind":"ReplicaSet","name":"web-1"}]},\
+            "spec":{"containers":[{"name":"app","image":"nginx","ports":[{"containerPort":80}]},{"name":"sidecar","args":["-v",null,"\\u003cx\\u003e"]}],\
+            "replicas":3,"ratio":1.50e3,"enabled":true,"empty":{},"nothing":null},\
+            "status":{"phase":"Running"}}""";
+
+    private static final List<String> RESOURCE_PATHS = List.of(
+            "$.kind",
+            "$.spec",
+            "$.spec.containers",
+            "$.spec.containers[0]",
+            "$.spec.containers[0].image",
+            "$.spec.containers[0].ports[0].containerPort",
+            "$.spec.containers.1.name",
+            "$.spec.containers[1].args",
+            "$.spec.containers[1].args[1]",
+            "$.spec.containers[1].args[2]",
+            "$.spec.containers[5].name",
+            "$[\"spec\"][\"replicas\"]",
+            "$.spec.replicas.value",
+            "$.spec.ratio",
+            "$.spec.enabled",
+            "$.spec.empty",
+            "$.spec.nothing",
+            "$.status.phase",
+            "$.missing",
+            "$.missing.value");
+
+    private static final List<String> METADATA_PATHS = List.of(
+            "$.name",
+            "$.labels",
+            "$.labels.app",
+            "$.labels[\"app.kubernetes.io/name\"]",
+            "$.ownerReferences",
+            "$.ownerReferences[0].name",
+            "$.ownerReferences[1].name",
+            "$.missing");
+
+    @Test
+    void testParsePath()
+    {
+        assertThat(JsonExtraction.parsePath("$.spec")).contains(List.of("spec"));
+        assertThat(JsonExtraction.parsePath("$.spec.containers[0].image")).contains(List.of("spec", "containers", "0", "image"));
+        assertThat(JsonExtraction.parsePath("$[\"spec\"][\"node-selector\"]")).contains(List.of("spec", "node-selector"));
+        assertThat(JsonExtraction.parsePath("$.labels[\"app.kubernetes.io/name\"]")).contains(List.of("labels", "app.kubernetes.io/name"));
+        assertThat(JsonExtraction.parsePath("$.items[007]")).contains(List.of("items", "7"));
+        assertThat(JsonExtraction.parsePath("$.items.0")).contains(List.of("items", "0"));
+        assertThat(JsonExtraction.parsePath("$.snake_case")).contains(List.of("snake_case"));
+
+        assertThat(JsonExtraction.parsePath("$")).isEmpty();
+        assertThat(JsonExtraction.parsePath("spec")).isEmpty();
+        assertThat(JsonExtraction.parsePath("$.")).isEmpty();
+        assertThat(JsonExtraction.parsePath("$..spec")).isEmpty();
+        assertThat(JsonExtraction.parsePath("$.spec.*")).isEmpty();
+        assertThat(JsonExtraction.parsePath("$.items[*]")).isEmpty();
+        assertThat(JsonExtraction.parsePath("$.items[-1]")).isEmpty();
+        assertThat(JsonExtraction.parsePath("$.items[0")).isEmpty();
+        assertThat(JsonExtraction.parsePath("$['spec']")).isEmpty();
+        assertThat(JsonExtraction.parsePath("$[\"\"]")).isEmpty();
+        assertThat(JsonExtraction.parsePath("$[\"a\\\"b\"]")).isEmpty();
+        assertThat(JsonExtraction.parsePath("$.spec-template")).isEmpty();
+    }
+
+    @Test
+    void testFrom()
+    {
+        assertThat(extraction(RESOURCE.name(), "json_extract", path("$.spec.replicas")))
+                .contains(new JsonExtraction(RESOURCE.name(), List.of("spec", "replicas"), false));
+        assertThat(extraction(METADATA.name(), "json_extract_scalar", new Call(VARCHAR, CAST_FUNCTION_NAME, List.of(path("$.name")))))
+                .contains(new JsonExtraction(METADATA.name(), List.of("name"), true));
+
+        assertThat(extraction(RESOURCE.name(), "json_extract", path("$.spec[*]"))).isEmpty();
+        assertThat(extraction(RESOURCE.name(), "json_size", path("$.spec"))).isEmpty();
+        assertThat(extraction(RESOURCE.name(), "json_extract", new Variable("path", VARCHAR))).isEmpty();
+        assertThat(extraction("spec", "json_extract", path("$.replicas"))).isEmpty();
+    }
+
+    @Test
+    void testMetadataOfResource()
+    {
+        // the resource column has no metadata, so the engine finds nothing at these paths
+        assertThat(extraction(RESOURCE.name(), "json_extract_scalar", path("$.metadata.name"))).isEmpty();
+        assertThat(extraction(RESOURCE.name(), "json_extract", path("$[\"metadata\"]"))).isEmpty();
+        assertThat(JsonFunctions.varcharJsonExtractScalar(ResourceRow.of(object()).resourceJson(), new JsonPath("$.metadata.name"))).isNull();
+
+        assertThat(extraction(METADATA.name(), "json_extract", path("$.metadata"))).isPresent();
+        assertThat(extraction(RESOURCE.name(), "json_extract", path("$.spec.template.metadata"))).isPresent();
+    }
+
+    @Test
+    void testObjectPath()
+    {
+        assertThat(new JsonExtraction(RESOURCE.name(), List.of("spec", "replicas"), false).objectPath()).isEqualTo(List.of("spec", "replicas"));
+        assertThat(new JsonExtraction(METADATA.name(), List.of("labels", "app"), true).objectPath()).isEqualTo(List.of("metadata", "labels", "app"));
+    }
+
+    @Test
+    void testColumnName()
+    {
+        assertThat(new JsonExtraction(RESOURCE.name(), List.of("spec", "containers", "0", "image"), false).columnName())
+                .isEqualTo("json_extract(resource, '$.spec.containers[0].image')");
+        assertThat(new JsonExtraction(METADATA.name(), List.of("labels", "app.kubernetes.io/name"), true).columnName())
+                .isEqualTo("json_extract_scalar(metadata, '$.labels[\"app.kubernetes.io/name\"]')");
+    }
+
+    @Test
+    void testMatchesEngine()
+            throws IOException
+    {
+        var extractions = ImmutableSet.<Map.Entry<String, JsonExtraction>>builder();
+        for (String path : RESOURCE_PATHS) {
+            extractions.add(Map.entry(path, extraction(RESOURCE.name(), "json_extract", path(path)).orElseThrow()));
+            extractions.add(Map.entry(path, extraction(RESOURCE.name(), "json_extract_scalar", path(path)).orElseThrow()));
+        }
+        for (String path : METADATA_PATHS) {
+            extractions.add(Map.entry(path, extraction(METADATA.name(), "json_extract", path(path)).orElseThrow()));
+            extractions.add(Map.entry(path, extraction(METADATA.name(), "json_extract_scalar", path(path)).orElseThrow()));
+        }
+
+        var paths = extractions.build().stream()
+                .map(entry -> entry.getValue().objectPath())
+                .collect(ImmutableSet.toImmutableSet());
+        var listed = new ResourceListDecoder(false, false, paths)
+                .decode("{\"items\":[%s]}".formatted(POD).getBytes(UTF_8))
+                .items()
+                .getFirst();
+        var object = ResourceRow.of(object());
+
+        for (Map.Entry<String, JsonExtraction> entry : extractions.build()) {
+            var extraction = entry.getValue();
+            var column = extraction.column().equals(RESOURCE.name()) ? object.resourceJson() : object.metadataJson();
+            var jsonPath = new JsonPath(entry.getKey());
+            var expected = extraction.scalar()
+                    ? JsonFunctions.varcharJsonExtractScalar(column, jsonPath)
+                    : JsonFunctions.varcharJsonExtract(column, jsonPath);
+
+            assertThat(write(extraction, listed)).as("listed %s", extraction.columnName()).isEqualTo(string(expected));
+            assertThat(write(extraction, object)).as("object %s", extraction.columnName()).isEqualTo(string(expected));
+        }
+
+        assertThat(write(new JsonExtraction(RESOURCE.name(), List.of("spec", "containers", "1", "args"), false), listed)).isEqualTo("[\"-v\",null,\"<x>\"]");
+        assertThat(write(new JsonExtraction(RESOURCE.name(), List.of("spec", "ratio"), true), listed)).isEqualTo("1.50e3");
+        assertThat(write(new JsonExtraction(METADATA.name(), List.of("ownerReferences", "0", "name"), true), listed)).isEqualTo("web-1");
+    }
+
+    private static String write(JsonExtraction extraction, ResourceRow row)
+    {
+        var output = VARCHAR.createBlockBuilder(null, 1);
+        extraction.write(VARCHAR, row.valueJson(extraction.objectPath()), output);
+        var block = output.build();
+        return block.isNull(0) ? null : VARCHAR.getSlice(block, 0).toStringUtf8();
+    }
+
+    private static Optional<JsonExtraction> extraction(String column, String function, ConnectorExpression path)
+    {
+        var call = new Call(VARCHAR, new FunctionName(function), List.of(new Variable("column", VARCHAR), path));
+        Map<String, ColumnHandle> assignments = Map.of("column", new KubernetesColumnHandle(column, VARCHAR));
+        return JsonExtraction.from(call, assignments);
+    }
+
+    private static Constant path(String path)
+    {
+        return new Constant(utf8Slice(path), VARCHAR);
+    }
+
+    private static DynamicKubernetesObject object()
+    {
+        return new DynamicKubernetesObject(JsonParser.parseString(POD).getAsJsonObject());
+    }
+
+    private static String string(Slice json)
+    {
+        return json == null ? null : json.toStringUtf8();
+    }
+}
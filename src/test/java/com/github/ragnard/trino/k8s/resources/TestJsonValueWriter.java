@@ -0,0 +1,151 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.github.ragnard.trino.k8s.resources;
+
+import io.trino.spi.TrinoException;
+import io.trino.spi.type.ArrayType;
+import io.trino.spi.type.MapType;
+import io.trino.spi.type.RowType;
+import io.trino.spi.type.SqlTimestampWithTimeZone;
+import io.trino.spi.type.Type;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.github.ragnard.trino.k8s.KubernetesTypes.TYPE_OPERATORS;
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.trino.spi.type.BigintType.BIGINT;
+import static io.trino.spi.type.BooleanType.BOOLEAN;
+import static io.trino.spi.type.DoubleType.DOUBLE;
+import static io.trino.spi.type.TimeZoneKey.UTC_KEY;
+import static io.trino.spi.type.TimestampWithTimeZoneType.TIMESTAMP_TZ_MICROS;
+import static io.trino.spi.type.VarcharType.VARCHAR;
+import static io.trino.testing.TestingConnectorSession.SESSION;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+final class TestJsonValueWriter
+{
+    @Test
+    void testNull()
+    {
+        assertThat(write(BIGINT, null)).isNull();
+        assertThat(write(BIGINT, "null")).isNull();
+        assertThat(write(VARCHAR, "null")).isNull();
+        assertThat(write(new ArrayType(BIGINT), "null")).isNull();
+    }
+
+    @Test
+    void testVarchar()
+    {
+        assertThat(write(VARCHAR, "\"a\\u003cb\\nc\"")).isEqualTo("a<b\nc");
+        // anything but a string is kept as its JSON text
+        assertThat(write(VARCHAR, "80")).isEqualTo("80");
+        assertThat(write(VARCHAR, "true")).isEqualTo("true");
+        assertThat(write(VARCHAR, "{\"a\": [1, 2]}")).isEqualTo("{\"a\": [1, 2]}");
+        assertThat(write(VARCHAR, "[]")).isEqualTo("[]");
+    }
+
+    @Test
+    void testScalars()
+    {
+        assertThat(write(BIGINT, "42")).isEqualTo(42L);
+        assertThat(write(BIGINT, "-9223372036854775808")).isEqualTo(Long.MIN_VALUE);
+        assertThat(write(DOUBLE, "1.5")).isEqualTo(1.5);
+        assertThat(write(DOUBLE, "2")).isEqualTo(2.0);
+        assertThat(write(BOOLEAN, "true")).isEqualTo(true);
+        assertThat(write(BOOLEAN, "false")).isEqualTo(false);
+        assertThat(write(TIMESTAMP_TZ_MICROS, "\"2024-05-17T10:30:15.123456+02:00\""))
+                .isEqualTo(SqlTimestampWithTimeZone.newInstance(6, 1715934615123L, 456_000_000, UTC_KEY));
+        // digits beyond microseconds are rounded away
+        assertThat(write(TIMESTAMP_TZ_MICROS, "\"2024-05-17T08:30:15.123456789Z\""))
+                .isEqualTo(SqlTimestampWithTimeZone.newInstance(6, 1715934615123L, 457_000_000, UTC_KEY));
+        assertThat(write(TIMESTAMP_TZ_MICROS, "\"2024-05-17T08:30:15.123456400Z\""))
+                .isEqualTo(SqlTimestampWithTimeZone.newInstance(6, 1715934615123L, 456_000_000, UTC_KEY));
+        assertThat(write(TIMESTAMP_TZ_MICROS, "\"2024-05-17T08:30:15.999999500Z\""))
+                .isEqualTo(SqlTimestampWithTimeZone.newInstance(6, 1715934616000L, 0, UTC_KEY));
+    }
+
+    @Test
+    void testMismatchedScalars()
+    {
+        assertThat(write(BIGINT, "\"42\"")).isNull();
+        assertThat(write(BIGINT, "1.5")).isNull();
+        assertThat(write(BIGINT, "{\"a\": 1}")).isNull();
+        assertThat(write(DOUBLE, "\"1.5\"")).isNull();
+        assertThat(write(BOOLEAN, "\"true\"")).isNull();
+        assertThat(write(BOOLEAN, "1")).isNull();
+        assertThat(write(TIMESTAMP_TZ_MICROS, "\"yesterday\"")).isNull();
+        assertThat(write(TIMESTAMP_TZ_MICROS, "1715934615")).isNull();
+    }
+
+    @Test
+    void testArray()
+    {
+        assertThat(write(new ArrayType(BIGINT), "[1, \"x\", null, [2], 3]")).isEqualTo(Arrays.asList(1L, null, null, null, 3L));
+        assertThat(write(new ArrayType(BIGINT), "[]")).isEqualTo(List.of());
+        assertThat(write(new ArrayType(new ArrayType(VARCHAR)), "[[\"a\"], [1, {}]]")).isEqualTo(List.of(List.of("a"), List.of("1", "{}")));
+        assertThat(write(new ArrayType(BIGINT), "{\"a\": 1}")).isNull();
+        assertThat(write(new ArrayType(BIGINT), "\"[1]\"")).isNull();
+    }
+
+    @Test
+    void testMap()
+    {
+        var type = new MapType(VARCHAR, BIGINT, TYPE_OPERATORS);
+        var expected = new HashMap<String, Long>();
+        expected.put("a", 1L);
+        expected.put("b", null);
+        assertThat(write(type, "{\"a\": 1, \"b\": \"x\"}")).isEqualTo(expected);
+        assertThat(write(type, "{}")).isEqualTo(Map.of());
+        assertThat(write(type, "[1]")).isNull();
+    }
+
+    @Test
+    void testRow()
+    {
+        var type = RowType.from(List.of(
+                RowType.field("name", VARCHAR),
+                RowType.field("count", BIGINT),
+                RowType.field("nested", RowType.from(List.of(RowType.field("enabled", BOOLEAN))))));
+
+        assertThat(write(type, "{\"count\": 3, \"name\": \"a\", \"nested\": {\"enabled\": true}}"))
+                .isEqualTo(List.of("a", 3L, List.of(true)));
+        // missing fields are null, unknown fields are skipped, and the first of duplicate fields wins
+        assertThat(write(type, "{\"other\": {\"name\": \"b\"}, \"name\": \"a\", \"name\": \"c\"}"))
+                .isEqualTo(Arrays.asList("a", null, null));
+        // a value of the wrong type is skipped without losing the fields that follow it
+        assertThat(write(type, "{\"count\": {\"a\": [1, {}]}, \"nested\": [true], \"name\": \"a\"}"))
+                .isEqualTo(Arrays.asList("a", null, null));
+        assertThat(write(type, "[\"a\", 3]")).isNull();
+    }
+
+    @Test
+    void testInvalidJson()
+    {
+        assertThatThrownBy(() -> write(new ArrayType(BIGINT), "[1, 2"))
+                .isInstanceOf(TrinoException.class)
+                .hasMessageContaining("Invalid JSON value");
+    }
+
+    private static Object write(Type type, String json)
+    {
+        var output = type.createBlockBuilder(null, 1);
+        JsonValueWriter.create(type).write(json == null ? null : utf8Slice(json), output);
+        return type.getObjectValue(SESSION, output.build(), 0);
+    }
+}